@@ -0,0 +1,152 @@
+package com.selimhorri.app.benchmark;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.persistence.EntityManager;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.RestTemplate;
+
+import com.selimhorri.app.client.OrderServiceClient;
+import com.selimhorri.app.client.ProductServiceClient;
+import com.selimhorri.app.client.RemoteCallGuardFactory;
+import com.selimhorri.app.config.client.ClientConfig;
+import com.selimhorri.app.config.client.ClientProperties;
+import com.selimhorri.app.config.shipping.ShippingProperties;
+import com.selimhorri.app.domain.OrderItem;
+import com.selimhorri.app.domain.projection.OrderItemStatusView;
+import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.helper.OrderItemMappingHelper;
+import com.selimhorri.app.metrics.ShippingMetrics;
+import com.selimhorri.app.repository.OrderItemRepository;
+import com.selimhorri.app.service.OrderItemService;
+import com.selimhorri.app.service.ShippingStatsService;
+import com.selimhorri.app.service.impl.OrderItemEnrichmentServiceImpl;
+import com.selimhorri.app.service.impl.OrderItemServiceImpl;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * findAll style enrichment and findById against a stubbed downstream with configurable latency.
+ * With the cache enabled the downstream is only hit during warmup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EnrichmentBenchmark {
+
+	@Param({ "100" })
+	int rows;
+
+	@Param({ "0", "5" })
+	long latencyMillis;
+
+	@Param({ "false", "true" })
+	boolean cacheEnabled;
+
+	private ThreadPoolTaskExecutor executor;
+	private ThreadPoolTaskScheduler scheduler;
+	private OrderItemEnrichmentServiceImpl enrichmentService;
+	private OrderItemService orderItemService;
+	private List<OrderItem> orderItems;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final var clientProperties = new ClientProperties();
+		clientProperties.getProduct().getCache().setEnabled(this.cacheEnabled);
+		clientProperties.getOrder().getCache().setEnabled(this.cacheEnabled);
+
+		this.executor = new ClientConfig().clientLookupExecutor(clientProperties);
+		this.executor.initialize();
+		this.scheduler = new ClientConfig().clientTimeoutScheduler();
+		this.scheduler.initialize();
+
+		final var meterRegistry = new SimpleMeterRegistry();
+		final var shippingMetrics = new ShippingMetrics(meterRegistry);
+		final var guardFactory = new RemoteCallGuardFactory(
+				BulkheadRegistry.ofDefaults(),
+				CircuitBreakerRegistry.ofDefaults(),
+				RetryRegistry.ofDefaults(),
+				TimeLimiterRegistry.ofDefaults(),
+				this.scheduler);
+		final var restTemplate = new RestTemplate(new StubClientHttpRequestFactory(this.latencyMillis));
+		final var productServiceClient = new ProductServiceClient(
+				restTemplate, this.executor, clientProperties, meterRegistry, guardFactory, shippingMetrics);
+		final var orderServiceClient = new OrderServiceClient(
+				restTemplate, this.executor, clientProperties, meterRegistry, guardFactory, shippingMetrics);
+		this.enrichmentService = new OrderItemEnrichmentServiceImpl(
+				productServiceClient, orderServiceClient, shippingMetrics);
+
+		this.orderItems = IntStream.rangeClosed(1, this.rows)
+				.mapToObj(id -> OrderItem.builder()
+						.orderId(id)
+						.productId(id % 20 + 1)
+						.orderedQuantity(1)
+						.isActive(true)
+						.build())
+				.collect(Collectors.toList());
+
+		final var orderItemView = Mockito.mock(OrderItemStatusView.class);
+		Mockito.when(orderItemView.getOrderId()).thenReturn(1);
+		Mockito.when(orderItemView.getProductId()).thenReturn(2);
+		Mockito.when(orderItemView.getOrderedQuantity()).thenReturn(1);
+		final var orderItemRepository = Mockito.mock(OrderItemRepository.class);
+		Mockito.when(orderItemRepository.findOrderedViewByOrderId(1)).thenReturn(Optional.of(orderItemView));
+		this.orderItemService = new OrderItemServiceImpl(
+				orderItemRepository,
+				productServiceClient,
+				orderServiceClient,
+				this.enrichmentService,
+				new ShippingProperties(),
+				Mockito.mock(EntityManager.class),
+				shippingMetrics,
+				Mockito.mock(PlatformTransactionManager.class),
+				Mockito.mock(ShippingStatsService.class));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.executor.shutdown();
+		this.scheduler.shutdown();
+	}
+
+	@Benchmark
+	public List<OrderItemDto> enrichAll() {
+		return this.enrichmentService.enrich(this.orderItems.stream()
+				.map(OrderItemMappingHelper::map)
+				.collect(Collectors.toList()));
+	}
+
+	@Benchmark
+	public OrderItemDto findById() {
+		return this.orderItemService.findById(1, true);
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.selimhorri.app.benchmark;
+
+import java.time.LocalDateTime;
+
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.dto.OrderStatus;
+import com.selimhorri.app.dto.ProductDto;
+
+final class Fixtures {
+
+	private Fixtures() {
+	}
+
+	static ProductDto product(final int productId) {
+		return ProductDto.builder()
+				.productId(productId)
+				.productTitle("Product " + productId)
+				.imageUrl("https://cdn.example.com/products/" + productId + ".png")
+				.sku("SKU-" + productId)
+				.priceUnit(19.99)
+				.quantity(1_000_000)
+				.build();
+	}
+
+	static OrderDto order(final int orderId) {
+		return OrderDto.builder()
+				.orderId(orderId)
+				.orderDate(LocalDateTime.of(2024, 1, 1, 12, 0))
+				.orderDesc("Order " + orderId)
+				.orderFee(42.5)
+				.orderStatus(OrderStatus.ORDERED.name())
+				.build();
+	}
+
+	static OrderItemDto enrichedOrderItem(final int orderId, final int productId) {
+		return OrderItemDto.builder()
+				.orderId(orderId)
+				.productId(productId)
+				.orderedQuantity(2)
+				.productDto(product(productId))
+				.orderDto(order(orderId))
+				.build();
+	}
+
+}
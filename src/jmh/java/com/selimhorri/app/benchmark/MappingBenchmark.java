@@ -0,0 +1,58 @@
+package com.selimhorri.app.benchmark;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.selimhorri.app.domain.OrderItem;
+import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.helper.OrderItemMappingHelper;
+
+/**
+ * Entity to DTO mapping and back, as done for every row of every request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+	private OrderItem orderItem;
+	private OrderItemDto orderItemDto;
+
+	@Setup
+	public void setUp() {
+		this.orderItem = OrderItem.builder()
+				.orderId(42)
+				.productId(7)
+				.orderedQuantity(3)
+				.isActive(true)
+				.build();
+		this.orderItem.setCreatedAt(Instant.now());
+		this.orderItem.setUpdatedAt(Instant.now());
+		this.orderItemDto = OrderItemMappingHelper.map(this.orderItem);
+	}
+
+	@Benchmark
+	public OrderItemDto entityToDto() {
+		return OrderItemMappingHelper.map(this.orderItem);
+	}
+
+	@Benchmark
+	public OrderItem dtoToEntity() {
+		return OrderItemMappingHelper.mapForCreation(this.orderItemDto);
+	}
+
+}
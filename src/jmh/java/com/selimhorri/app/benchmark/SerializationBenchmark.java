@@ -0,0 +1,57 @@
+package com.selimhorri.app.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.selimhorri.app.config.mapper.MapperConfig;
+import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+
+/**
+ * Serialization of enriched shipping collections with the application {@code ObjectMapper}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	int size;
+
+	private ObjectWriter writer;
+	private DtoCollectionResponse<OrderItemDto> response;
+
+	@Setup
+	public void setUp() {
+		this.writer = new MapperConfig().objectMapperBean().writer();
+		final List<OrderItemDto> orderItemDtos = IntStream.rangeClosed(1, this.size)
+				.mapToObj(id -> Fixtures.enrichedOrderItem(id, id % 50 + 1))
+				.collect(Collectors.toList());
+		this.response = new DtoCollectionResponse<>(orderItemDtos);
+	}
+
+	@Benchmark
+	public byte[] serializeCollection() throws JsonProcessingException {
+		return this.writer.writeValueAsBytes(this.response);
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.selimhorri.app.benchmark;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+/**
+ * In-process stand-in for PRODUCT-SERVICE and ORDER-SERVICE single-id endpoints,
+ * answering every request after a fixed latency.
+ */
+final class StubClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+	private final ObjectMapper objectMapper = new JsonMapper();
+	private final long latencyMillis;
+
+	StubClientHttpRequestFactory(final long latencyMillis) {
+		this.latencyMillis = latencyMillis;
+	}
+
+	@Override
+	public ClientHttpRequest createRequest(final URI uri, final HttpMethod httpMethod) throws IOException {
+		if (this.latencyMillis > 0) {
+			try {
+				Thread.sleep(this.latencyMillis);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		}
+
+		final var path = uri.getPath();
+		final int id = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+		final Object body = path.contains("/api/products/") ? Fixtures.product(id) : Fixtures.order(id);
+
+		final var response = new MockClientHttpResponse(this.objectMapper.writeValueAsBytes(body), HttpStatus.OK);
+		response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		final var request = new MockClientHttpRequest(httpMethod, uri);
+		request.setResponse(response);
+		return request;
+	}
+
+}
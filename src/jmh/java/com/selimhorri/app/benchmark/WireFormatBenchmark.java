@@ -0,0 +1,113 @@
+package com.selimhorri.app.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.selimhorri.app.config.mapper.MapperConfig;
+import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+
+/**
+ * Serialization CPU of an enriched shipping collection per wire format, with and without
+ * gzip. Bytes on the wire of each format are printed once per trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+	@Param({ "indented-json", "json", "smile", "cbor" })
+	String format;
+
+	@Param({ "100", "1000" })
+	int size;
+
+	private ObjectWriter writer;
+	private ObjectReader reader;
+	private DtoCollectionResponse<OrderItemDto> response;
+	private byte[] encoded;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		final ObjectMapper mapper;
+		switch (this.format) {
+			case "indented-json":
+				mapper = new MapperConfig().objectMapperBean().enable(SerializationFeature.INDENT_OUTPUT);
+				break;
+			case "smile":
+				mapper = new SmileMapper();
+				break;
+			case "cbor":
+				mapper = new CBORMapper();
+				break;
+			default:
+				mapper = new MapperConfig().objectMapperBean();
+		}
+		this.writer = mapper.writer();
+		this.reader = mapper.readerFor(new TypeReference<DtoCollectionResponse<OrderItemDto>>() {});
+		final List<OrderItemDto> orderItemDtos = IntStream.rangeClosed(1, this.size)
+				.mapToObj(id -> Fixtures.enrichedOrderItem(id, id % 50 + 1))
+				.collect(Collectors.toList());
+		this.response = new DtoCollectionResponse<>(orderItemDtos);
+		this.encoded = this.writer.writeValueAsBytes(this.response);
+	}
+
+	@TearDown(Level.Trial)
+	public void reportSize() throws IOException {
+		System.out.printf("%n%s, %d shippings: %d bytes, %d bytes gzipped%n",
+				this.format, this.size, this.encoded.length, gzip(this.encoded).length);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return this.writer.writeValueAsBytes(this.response);
+	}
+
+	@Benchmark
+	public byte[] serializeGzipped() throws IOException {
+		return gzip(this.writer.writeValueAsBytes(this.response));
+	}
+
+	@Benchmark
+	public Object deserialize() throws IOException {
+		return this.reader.readValue(this.encoded);
+	}
+
+	private static byte[] gzip(final byte[] bytes) throws IOException {
+		final var buffer = new ByteArrayOutputStream(bytes.length / 4 + 64);
+		try (var gzip = new GZIPOutputStream(buffer)) {
+			gzip.write(bytes);
+		}
+		return buffer.toByteArray();
+	}
+
+}
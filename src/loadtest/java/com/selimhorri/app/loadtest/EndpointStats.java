@@ -0,0 +1,45 @@
+package com.selimhorri.app.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+
+/**
+ * Latency histogram and outcome counters of one endpoint.
+ */
+class EndpointStats {
+
+	private final ConcurrentHistogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+	private final LongAdder clientErrors = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+
+	/**
+	 * @param status HTTP status, or a negative value when no answer was received
+	 */
+	void record(final long elapsedNanos, final int status) {
+		this.latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos),
+				this.latencies.getHighestTrackableValue()));
+		if (status < 0 || status >= 500)
+			this.errors.increment();
+		else if (status >= 400)
+			this.clientErrors.increment();
+	}
+
+	Map<String, Object> describe(final double elapsedSeconds) {
+		final Map<String, Object> description = new LinkedHashMap<>();
+		final long count = this.latencies.getTotalCount();
+		description.put("count", count);
+		description.put("throughputPerSecond", elapsedSeconds > 0 ? count / elapsedSeconds : 0);
+		description.put("errors", this.errors.sum());
+		description.put("clientErrors", this.clientErrors.sum());
+		description.put("p50Millis", this.latencies.getValueAtPercentile(50) / 1000.0);
+		description.put("p95Millis", this.latencies.getValueAtPercentile(95) / 1000.0);
+		description.put("p99Millis", this.latencies.getValueAtPercentile(99) / 1000.0);
+		description.put("maxMillis", this.latencies.getMaxValue() / 1000.0);
+		return description;
+	}
+
+}
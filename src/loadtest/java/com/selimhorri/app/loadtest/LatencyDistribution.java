@@ -0,0 +1,59 @@
+package com.selimhorri.app.loadtest;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency added by a stub server to every answer, parsed from a spec:
+ * {@code fixed:<ms>}, {@code uniform:<min>-<max>} or {@code lognormal:<median>,<sigma>}.
+ */
+abstract class LatencyDistribution {
+
+	abstract long nextMillis(Random random);
+
+	long nextMillis() {
+		return this.nextMillis(ThreadLocalRandom.current());
+	}
+
+	static LatencyDistribution parse(final String spec) {
+		final var parts = spec.trim().split(":", 2);
+		final var kind = parts[0].toLowerCase();
+		final var args = parts.length > 1 ? parts[1] : "0";
+		switch (kind) {
+			case "fixed": {
+				final long millis = Long.parseLong(args);
+				return new LatencyDistribution() {
+					@Override
+					long nextMillis(final Random random) {
+						return millis;
+					}
+				};
+			}
+			case "uniform": {
+				final var bounds = args.split("-");
+				final long min = Long.parseLong(bounds[0]);
+				final long max = Long.parseLong(bounds[1]);
+				return new LatencyDistribution() {
+					@Override
+					long nextMillis(final Random random) {
+						return min + (long) (random.nextDouble() * (max - min + 1));
+					}
+				};
+			}
+			case "lognormal": {
+				final var values = args.split(",");
+				final double mu = Math.log(Double.parseDouble(values[0]));
+				final double sigma = Double.parseDouble(values[1]);
+				return new LatencyDistribution() {
+					@Override
+					long nextMillis(final Random random) {
+						return Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+					}
+				};
+			}
+			default:
+				throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+		}
+	}
+
+}
@@ -0,0 +1,165 @@
+package com.selimhorri.app.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Closed-loop driver: each virtual user sends one request at a time, picking the scenario
+ * from the configured weights, until the run duration is over.
+ */
+@Slf4j
+class LoadDriver {
+
+	static final String LIST = "GET /api/shippings";
+	static final String GET = "GET /api/shippings/{orderId}";
+	static final String CREATE = "POST /api/shippings";
+	static final String DELETE = "DELETE /api/shippings/{orderId}";
+	static final String BATCH = "POST /api/shippings/batch";
+
+	private final HttpClient httpClient = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+	private final String baseUrl;
+	private final Map<String, Integer> weights;
+	private final int firstOrderId;
+	private final AtomicInteger nextOrderId;
+	private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+
+	LoadDriver(final String baseUrl, final Map<String, Integer> weights, final int firstOrderId) {
+		this.baseUrl = baseUrl;
+		this.weights = weights;
+		this.firstOrderId = firstOrderId;
+		this.nextOrderId = new AtomicInteger(firstOrderId);
+		List.of(LIST, GET, CREATE, DELETE, BATCH).forEach(endpoint -> this.stats.put(endpoint, new EndpointStats()));
+	}
+
+	/**
+	 * Creates the initial shippings through the batch endpoint, so reads have rows to return.
+	 */
+	void seed(final int rows, final int batchSize) {
+		for (int created = 0; created < rows; created += batchSize) {
+			final var body = IntStream.range(0, Math.min(batchSize, rows - created))
+					.mapToObj(i -> this.shippingJson(this.nextOrderId.getAndIncrement()))
+					.collect(Collectors.joining(",", "[", "]"));
+			this.send(BATCH, HttpRequest.newBuilder(URI.create(this.baseUrl + "/batch"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(body)));
+		}
+		log.info("Seeded {} shippings", rows);
+	}
+
+	/**
+	 * @return the measured run duration in seconds
+	 */
+	double run(final int users, final Duration duration) throws InterruptedException {
+		final long deadline = System.nanoTime() + duration.toNanos();
+		final long start = System.nanoTime();
+		final ExecutorService virtualUsers = Executors.newFixedThreadPool(users);
+		for (int i = 0; i < users; i++) {
+			virtualUsers.execute(() -> {
+				while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted())
+					this.runScenario(this.pickScenario());
+			});
+		}
+		virtualUsers.shutdown();
+		virtualUsers.awaitTermination(duration.toMillis() + TimeUnit.MINUTES.toMillis(1), TimeUnit.MILLISECONDS);
+		return (System.nanoTime() - start) / 1e9;
+	}
+
+	Map<String, Object> describe(final double elapsedSeconds) {
+		final Map<String, Object> description = new LinkedHashMap<>();
+		this.stats.forEach((endpoint, endpointStats) -> description.put(endpoint, endpointStats.describe(elapsedSeconds)));
+		return description;
+	}
+
+	private String pickScenario() {
+		final int total = this.weights.values().stream().mapToInt(Integer::intValue).sum();
+		int draw = ThreadLocalRandom.current().nextInt(total);
+		for (final var weight : this.weights.entrySet()) {
+			draw -= weight.getValue();
+			if (draw < 0)
+				return weight.getKey();
+		}
+		return LIST;
+	}
+
+	private void runScenario(final String scenario) {
+		switch (scenario) {
+			case GET:
+				this.send(GET, HttpRequest.newBuilder(URI.create(this.baseUrl + "/" + this.randomOrderId())).GET());
+				break;
+			case CREATE:
+				this.send(CREATE, HttpRequest.newBuilder(URI.create(this.baseUrl))
+						.header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString(this.shippingJson(this.nextOrderId.getAndIncrement()))));
+				break;
+			case DELETE:
+				this.send(DELETE, HttpRequest.newBuilder(URI.create(this.baseUrl + "/" + this.randomOrderId())).DELETE());
+				break;
+			default:
+				this.send(LIST, HttpRequest.newBuilder(URI.create(this.baseUrl + "?limit=50")).GET());
+		}
+	}
+
+	private void send(final String endpoint, final HttpRequest.Builder request) {
+		final long start = System.nanoTime();
+		int status;
+		try {
+			status = this.httpClient.send(request.timeout(Duration.ofSeconds(30)).build(),
+					HttpResponse.BodyHandlers.discarding()).statusCode();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			status = -1;
+		}
+		catch (Exception e) {
+			status = -1;
+		}
+		this.stats.get(endpoint).record(System.nanoTime() - start, status);
+	}
+
+	private int randomOrderId() {
+		return ThreadLocalRandom.current().nextInt(this.firstOrderId, Math.max(this.firstOrderId + 1, this.nextOrderId.get()));
+	}
+
+	private String shippingJson(final int orderId) {
+		return "{\"orderId\":" + orderId + ",\"productId\":" + (orderId % 100 + 1) + ",\"orderedQuantity\":1}";
+	}
+
+	/**
+	 * Parses scenario weights such as {@code list:50,get:30,create:15,delete:5}.
+	 */
+	static Map<String, Integer> parseWeights(final String spec) {
+		final Map<String, String> endpoints = Map.of("list", LIST, "get", GET, "create", CREATE, "delete", DELETE);
+		final Map<String, Integer> weights = new LinkedHashMap<>();
+		final List<String> unknown = new ArrayList<>();
+		for (final var entry : spec.split(",")) {
+			final var parts = entry.trim().split(":");
+			final var endpoint = endpoints.get(parts[0].trim().toLowerCase());
+			if (endpoint == null)
+				unknown.add(parts[0]);
+			else
+				weights.put(endpoint, Integer.parseInt(parts[1].trim()));
+		}
+		if (!unknown.isEmpty())
+			throw new IllegalArgumentException("Unknown scenarios " + unknown + ", expected one of " + endpoints.keySet());
+		return weights;
+	}
+
+}
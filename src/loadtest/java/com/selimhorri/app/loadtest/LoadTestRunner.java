@@ -0,0 +1,125 @@
+package com.selimhorri.app.loadtest;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.selimhorri.app.ShippingServiceApplication;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Offline load test: starts stubbed PRODUCT-SERVICE and ORDER-SERVICE, boots the shipping
+ * service against them on an in-memory database ({@code loadtest} profile), drives a mixed
+ * read/write workload and writes per-endpoint latency percentiles, throughput and errors to
+ * {@code target/loadtest/result-<timestamp>.json}.
+ * <p>
+ * Tuned through system properties, see {@link #property(String, String)} call sites for
+ * names and defaults.
+ */
+@Slf4j
+public final class LoadTestRunner {
+
+	private static final int FRESH_ORDER_IDS_FROM = 1_000_000;
+
+	private LoadTestRunner() {
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final Map<String, Object> config = new LinkedHashMap<>();
+		final var productLatency = property("product.latency", "lognormal:20,0.5");
+		final var orderLatency = property("order.latency", "lognormal:15,0.5");
+		final double productErrorRate = Double.parseDouble(property("product.errorRate", "0.0"));
+		final double orderErrorRate = Double.parseDouble(property("order.errorRate", "0.0"));
+		final var orderStatuses = property("order.statuses", "ORDERED:90,CREATED:5,PAID:5");
+		final var duration = Duration.parse("PT" + property("loadtest.duration", "60s").toUpperCase());
+		final int users = Integer.parseInt(property("loadtest.users", "32"));
+		final var mix = property("loadtest.mix", "list:50,get:30,create:15,delete:5");
+		final int seedRows = Integer.parseInt(property("loadtest.seedRows", "1000"));
+		final var output = property("loadtest.output", "target/loadtest/result-"
+				+ DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC).format(Instant.now()) + ".json");
+		config.put("product.latency", productLatency);
+		config.put("order.latency", orderLatency);
+		config.put("product.errorRate", productErrorRate);
+		config.put("order.errorRate", orderErrorRate);
+		config.put("order.statuses", orderStatuses);
+		config.put("loadtest.duration", duration.toString());
+		config.put("loadtest.users", users);
+		config.put("loadtest.mix", mix);
+		config.put("loadtest.seedRows", seedRows);
+
+		try (var productService = new StubDownstreamServer("PRODUCT-SERVICE", LatencyDistribution.parse(productLatency),
+						productErrorRate, Map.of(), FRESH_ORDER_IDS_FROM);
+				var orderService = new StubDownstreamServer("ORDER-SERVICE", LatencyDistribution.parse(orderLatency),
+						orderErrorRate, StubDownstreamServer.parseStatusWeights(orderStatuses), FRESH_ORDER_IDS_FROM);
+				var context = new SpringApplicationBuilder(ShippingServiceApplication.class)
+						.profiles("loadtest")
+						.run(withOverrides(args,
+								"--server.port=0",
+								"--spring.cloud.discovery.client.simple.instances[PRODUCT-SERVICE][0].uri=" + productService.getUri(),
+								"--spring.cloud.discovery.client.simple.instances[ORDER-SERVICE][0].uri=" + orderService.getUri()))) {
+			final int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			final var driver = new LoadDriver("http://localhost:" + port + "/shipping-service/api/shippings",
+					LoadDriver.parseWeights(mix), FRESH_ORDER_IDS_FROM);
+			log.info("*** Load test, {} users for {} against {} and {} *", users, duration, productService, orderService);
+			driver.seed(seedRows, 100);
+			final double elapsedSeconds = driver.run(users, duration);
+
+			final Map<String, Object> result = new LinkedHashMap<>();
+			result.put("timestamp", Instant.now().toString());
+			result.put("commit", gitCommit());
+			result.put("elapsedSeconds", elapsedSeconds);
+			result.put("config", config);
+			result.put("endpoints", driver.describe(elapsedSeconds));
+			result.put("productService", productService.describe());
+			result.put("orderService", orderService.describe());
+
+			final var path = Path.of(output);
+			Files.createDirectories(path.toAbsolutePath().getParent());
+			JsonMapper.builder().enable(SerializationFeature.INDENT_OUTPUT).build()
+					.writeValue(path.toFile(), result);
+			log.info("*** Load test results written to {} *", path.toAbsolutePath());
+		}
+	}
+
+	/**
+	 * Command line arguments win over the profile files, unlike builder default properties.
+	 */
+	private static String[] withOverrides(final String[] args, final String... overrides) {
+		final var all = Arrays.copyOf(overrides, overrides.length + args.length);
+		System.arraycopy(args, 0, all, overrides.length, args.length);
+		return all;
+	}
+
+	private static String property(final String name, final String defaultValue) {
+		return System.getProperty(name, defaultValue);
+	}
+
+	private static String gitCommit() {
+		try {
+			final var process = new ProcessBuilder("git", "rev-parse", "HEAD").redirectErrorStream(true).start();
+			try (var reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+				final var commit = reader.readLine();
+				return process.waitFor() == 0 ? commit : null;
+			}
+		}
+		catch (Exception e) {
+			return null;
+		}
+	}
+
+}
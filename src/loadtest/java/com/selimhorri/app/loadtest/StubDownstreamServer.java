@@ -0,0 +1,176 @@
+package com.selimhorri.app.loadtest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.OrderStatus;
+import com.selimhorri.app.dto.ProductDto;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for PRODUCT-SERVICE or ORDER-SERVICE on an ephemeral port.
+ * Every answer is delayed by the configured latency distribution and fails with 503 at
+ * the configured error rate. Orders from {@code freshOrderIdsFrom} on start CREATED and
+ * move to ORDERED once their status is PATCHed, older ids get a status drawn once from
+ * the configured weights.
+ */
+class StubDownstreamServer implements AutoCloseable {
+
+	private final ObjectMapper objectMapper = new JsonMapper();
+	private final String name;
+	private final LatencyDistribution latency;
+	private final double errorRate;
+	private final Map<OrderStatus, Integer> statusWeights;
+	private final int freshOrderIdsFrom;
+	private final ConcurrentMap<Integer, OrderStatus> orderStatuses = new ConcurrentHashMap<>();
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder injectedErrors = new LongAdder();
+	private final ExecutorService workers = Executors.newCachedThreadPool();
+	private final HttpServer server;
+
+	StubDownstreamServer(
+			final String name,
+			final LatencyDistribution latency,
+			final double errorRate,
+			final Map<OrderStatus, Integer> statusWeights,
+			final int freshOrderIdsFrom) throws IOException {
+		this.name = name;
+		this.latency = latency;
+		this.errorRate = errorRate;
+		this.statusWeights = statusWeights;
+		this.freshOrderIdsFrom = freshOrderIdsFrom;
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 512);
+		this.server.createContext("/", this::handle);
+		this.server.setExecutor(this.workers);
+		this.server.start();
+	}
+
+	String getUri() {
+		return "http://localhost:" + this.server.getAddress().getPort();
+	}
+
+	Map<String, Object> describe() {
+		final Map<String, Object> description = new LinkedHashMap<>();
+		description.put("requests", this.requests.sum());
+		description.put("injectedErrors", this.injectedErrors.sum());
+		return description;
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+		this.requests.increment();
+		try (exchange) {
+			sleep(this.latency.nextMillis());
+			if (ThreadLocalRandom.current().nextDouble() < this.errorRate) {
+				this.injectedErrors.increment();
+				exchange.sendResponseHeaders(503, -1);
+				return;
+			}
+
+			final var segments = exchange.getRequestURI().getPath().split("/");
+			final var method = exchange.getRequestMethod();
+			if (exchange.getRequestURI().getPath().contains("/api/products/") && "GET".equals(method)) {
+				this.send(exchange, this.product(Integer.parseInt(segments[segments.length - 1])));
+			}
+			else if (exchange.getRequestURI().getPath().endsWith("/status") && "PATCH".equals(method)) {
+				final int orderId = Integer.parseInt(segments[segments.length - 2]);
+				this.orderStatuses.compute(orderId, (id, status) ->
+						status == null || status == OrderStatus.CREATED ? OrderStatus.ORDERED : status);
+				exchange.sendResponseHeaders(200, -1);
+			}
+			else if (exchange.getRequestURI().getPath().contains("/api/orders/") && "GET".equals(method)) {
+				this.send(exchange, this.order(Integer.parseInt(segments[segments.length - 1])));
+			}
+			else {
+				exchange.sendResponseHeaders(404, -1);
+			}
+		}
+	}
+
+	private ProductDto product(final int productId) {
+		return ProductDto.builder()
+				.productId(productId)
+				.productTitle("Product " + productId)
+				.imageUrl("https://cdn.example.com/products/" + productId + ".png")
+				.sku("SKU-" + productId)
+				.priceUnit(9.99)
+				.quantity(Integer.MAX_VALUE)
+				.build();
+	}
+
+	private OrderDto order(final int orderId) {
+		final var status = this.orderStatuses.computeIfAbsent(orderId, id ->
+				id >= this.freshOrderIdsFrom ? OrderStatus.CREATED : this.drawStatus());
+		return OrderDto.builder()
+				.orderId(orderId)
+				.orderDesc("Order " + orderId)
+				.orderFee(10.0)
+				.orderStatus(status.name())
+				.build();
+	}
+
+	private OrderStatus drawStatus() {
+		final int total = this.statusWeights.values().stream().mapToInt(Integer::intValue).sum();
+		int draw = ThreadLocalRandom.current().nextInt(Math.max(1, total));
+		for (final var weight : this.statusWeights.entrySet()) {
+			draw -= weight.getValue();
+			if (draw < 0)
+				return weight.getKey();
+		}
+		return OrderStatus.ORDERED;
+	}
+
+	private void send(final HttpExchange exchange, final Object body) throws IOException {
+		final var bytes = this.objectMapper.writeValueAsBytes(body);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, bytes.length);
+		exchange.getResponseBody().write(bytes);
+	}
+
+	private static void sleep(final long millis) {
+		if (millis <= 0)
+			return;
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Parses status weights such as {@code ORDERED:90,CREATED:5,PAID:5}.
+	 */
+	static Map<OrderStatus, Integer> parseStatusWeights(final String spec) {
+		final Map<OrderStatus, Integer> weights = new LinkedHashMap<>();
+		for (final var entry : spec.split(",")) {
+			final var parts = entry.trim().split(":");
+			weights.put(OrderStatus.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+		}
+		return weights;
+	}
+
+	@Override
+	public void close() {
+		this.server.stop(0);
+		this.workers.shutdownNow();
+	}
+
+	@Override
+	public String toString() {
+		return this.name + "@" + this.getUri();
+	}
+
+}
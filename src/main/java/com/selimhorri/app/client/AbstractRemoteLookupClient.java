@@ -0,0 +1,410 @@
+package com.selimhorri.app.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.selimhorri.app.config.client.ClientProperties.ServiceProperties;
+import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+import com.selimhorri.app.metrics.ShippingMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolves remote resources by id, one at a time or as a deduplicated set.
+ * Sets are fetched through the configured multi-id endpoint in chunks, or with
+ * parallel single-id calls when the downstream service has none. Answers, including
+ * 404s, are kept in a {@link RemoteLookupCache} in front of the downstream service.
+ * Every remote call goes through the {@link RemoteCallGuard} of the service, and the last
+ * known good copy of a resource is served to reads when the service cannot be reached.
+ * The {@code Fresh} lookups back the checks writes are decided on: they always ask the
+ * downstream service, refreshing the cache with its answer, and never serve a cached or stale copy.
+ * Concurrent lookups of the same id are coalesced into one remote call by a {@link SingleFlight}.
+ * Each remote call is timed by outcome through {@link ShippingMetrics}.
+ */
+@Slf4j
+public abstract class AbstractRemoteLookupClient<T> {
+
+	private final String name;
+	private final RestTemplate restTemplate;
+	private final Executor executor;
+	private final ServiceProperties serviceProperties;
+	private final String apiUrl;
+	private final Class<T> type;
+	private final ParameterizedTypeReference<DtoCollectionResponse<T>> collectionType;
+	private final Function<T, Integer> idExtractor;
+	private final RemoteLookupCache<T> cache;
+	private final RemoteCallGuard guard;
+	private final SingleFlight<Optional<T>> singleFlight;
+	private final ShippingMetrics metrics;
+
+	protected AbstractRemoteLookupClient(
+			final String name,
+			final RestTemplate restTemplate,
+			final Executor executor,
+			final ServiceProperties serviceProperties,
+			final String apiUrl,
+			final Class<T> type,
+			final ParameterizedTypeReference<DtoCollectionResponse<T>> collectionType,
+			final Function<T, Integer> idExtractor,
+			final MeterRegistry meterRegistry,
+			final RemoteCallGuardFactory guardFactory,
+			final ShippingMetrics metrics) {
+		this.name = name;
+		this.restTemplate = restTemplate;
+		this.executor = executor;
+		this.serviceProperties = serviceProperties;
+		this.apiUrl = apiUrl;
+		this.type = type;
+		this.collectionType = collectionType;
+		this.idExtractor = idExtractor;
+		this.cache = new RemoteLookupCache<>(name, serviceProperties.getCache(), meterRegistry);
+		this.guard = guardFactory.forInstance(name + "Service");
+		this.singleFlight = new SingleFlight<>(name, serviceProperties.getJoinTimeout(), meterRegistry);
+		this.metrics = metrics;
+	}
+
+	protected Executor getExecutor() {
+		return this.executor;
+	}
+
+	protected RemoteCallGuard getGuard() {
+		return this.guard;
+	}
+
+	public RemoteLookupCache<T> getCache() {
+		return this.cache;
+	}
+
+	/**
+	 * Starts timing a remote call, to be ended by {@link #recordCall(Timer.Sample, String, String)}.
+	 */
+	protected Timer.Sample startCall() {
+		return this.metrics.start();
+	}
+
+	protected void recordCall(final Timer.Sample sample, final String operation, final String outcome) {
+		this.metrics.recordDownstream(sample, this.name, operation, outcome);
+	}
+
+	/**
+	 * Outcome a successful lookup is recorded with, subclasses may single out resources
+	 * that reads go on to filter out.
+	 */
+	protected String outcomeOf(final T resource) {
+		return ShippingMetrics.SUCCESS;
+	}
+
+	/**
+	 * Drops the cached answer for this id, to be called once the resource is known to have changed.
+	 */
+	public void evict(final Integer id) {
+		this.cache.invalidate(id);
+	}
+
+	/**
+	 * Fingerprint of what a lookup of this id would answer from the cache alone, zero for an
+	 * id known to be missing, empty when only a remote call can tell.
+	 */
+	public OptionalInt cachedFingerprint(final Integer id) {
+		final var cached = this.cache.getIfPresent(id);
+		if (cached != null)
+			return OptionalInt.of(cached.hashCode());
+		return this.cache.isKnownMissing(id) ? OptionalInt.of(0) : OptionalInt.empty();
+	}
+
+	/**
+	 * @return the resource, or empty when the downstream service does not know this id
+	 * @throws RestClientException when the call failed for any other reason and no stale copy is known
+	 */
+	public Optional<T> findById(final Integer id) {
+		try {
+			return this.findByIdCached(id);
+		}
+		catch (RestClientException e) {
+			final var stale = this.cache.getStale(id);
+			if (stale == null)
+				throw e;
+			log.warn("Serving stale {} {}, downstream call failed: {}", this.type.getSimpleName(), id, e.getMessage());
+			return Optional.of(stale);
+		}
+	}
+
+	/**
+	 * Asks the downstream service, bypassing the cache, without falling back to the stale copy.
+	 * A lookup of the same id already in flight is joined.
+	 * @return the resource, or empty when the downstream service does not know this id
+	 * @throws RestClientException when the call failed for any other reason
+	 */
+	public Optional<T> findByIdFresh(final Integer id) {
+		return this.singleFlight.execute(id, () -> this.fetchById(id));
+	}
+
+	private Optional<T> findByIdCached(final Integer id) {
+		final var cached = this.cache.getIfPresent(id);
+		if (cached != null)
+			return Optional.of(cached);
+		if (this.cache.isKnownMissing(id))
+			return Optional.empty();
+		return this.findByIdFresh(id);
+	}
+
+	private Optional<T> fetchById(final Integer id) {
+		final var sample = this.startCall();
+		try {
+			final var resource = this.guard.idempotentCall(
+					() -> this.restTemplate.getForObject(this.apiUrl + "/" + id, this.type));
+			if (resource == null) {
+				this.recordCall(sample, "get", ShippingMetrics.NOT_FOUND);
+				this.cache.putMissing(id);
+				return Optional.empty();
+			}
+			this.recordCall(sample, "get", this.outcomeOf(resource));
+			this.cache.put(id, resource);
+			return Optional.of(resource);
+		}
+		catch (HttpClientErrorException.NotFound e) {
+			this.recordCall(sample, "get", ShippingMetrics.NOT_FOUND);
+			this.cache.putMissing(id);
+			return Optional.empty();
+		}
+		catch (RestClientException e) {
+			this.recordCall(sample, "get", ShippingMetrics.ERROR);
+			throw e;
+		}
+	}
+
+	/**
+	 * Non blocking variant of {@link #findById(Integer)}, run on the bounded lookup executor
+	 * under the time limit of the service. Failures complete the returned future exceptionally.
+	 */
+	public CompletableFuture<Optional<T>> findByIdAsync(final Integer id) {
+		return this.lookupAsync(id, this::findByIdCached)
+				.handle((resource, e) -> {
+					if (e == null)
+						return resource;
+					final var stale = this.cache.getStale(id);
+					if (stale == null)
+						throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+					log.warn("Serving stale {} {}, downstream call failed", this.type.getSimpleName(), id);
+					return Optional.of(stale);
+				});
+	}
+
+	/**
+	 * Non blocking variant of {@link #findByIdFresh(Integer)}.
+	 */
+	public CompletableFuture<Optional<T>> findByIdFreshAsync(final Integer id) {
+		return this.lookupAsync(id, this::findByIdFresh);
+	}
+
+	private CompletableFuture<Optional<T>> lookupAsync(final Integer id,
+			final Function<Integer, Optional<T>> lookup) {
+		if (id == null)
+			return CompletableFuture.completedFuture(Optional.empty());
+		return this.guard.withTimeLimit(
+				() -> CompletableFuture.supplyAsync(() -> lookup.apply(id), this.executor));
+	}
+
+	/**
+	 * Each distinct id is resolved once. Ids that could not be resolved are absent from the result.
+	 */
+	public Map<Integer, T> findAllByIds(final Collection<Integer> ids) {
+		return this.findAllByIdsAsync(ids).join();
+	}
+
+	/**
+	 * Non blocking variant of {@link #findAllByIds(Collection)}, only leaf calls are
+	 * handed to the executor so callers may safely join on the returned future.
+	 */
+	public CompletableFuture<Map<Integer, T>> findAllByIdsAsync(final Collection<Integer> ids) {
+		return this.findAllByIdsAsync(ids, true);
+	}
+
+	/**
+	 * Same as {@link #findAllByIds(Collection)}, asking the downstream service for every id without
+	 * serving cached or stale copies. Ids whose lookup failed are absent from the result like
+	 * unknown ids.
+	 */
+	public Map<Integer, T> findAllByIdsFresh(final Collection<Integer> ids) {
+		return this.findAllByIdsFreshAsync(ids).join();
+	}
+
+	/**
+	 * Non blocking variant of {@link #findAllByIdsFresh(Collection)}.
+	 */
+	public CompletableFuture<Map<Integer, T>> findAllByIdsFreshAsync(final Collection<Integer> ids) {
+		return this.findAllByIdsAsync(ids, false);
+	}
+
+	/**
+	 * @param allowStale whether this is a read, served from the cache and falling back to stale copies
+	 */
+	private CompletableFuture<Map<Integer, T>> findAllByIdsAsync(final Collection<Integer> ids,
+			final boolean allowStale) {
+		final var distinctIds = ids.stream()
+				.filter(Objects::nonNull)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+		final Map<Integer, T> cached = allowStale ? this.cache.getAllPresent(distinctIds) : Collections.emptyMap();
+		distinctIds.removeIf(id -> cached.containsKey(id) || allowStale && this.cache.isKnownMissing(id));
+		if (distinctIds.isEmpty())
+			return CompletableFuture.completedFuture(cached);
+
+		final List<CompletableFuture<Map<Integer, T>>> futures = this.hasBatchEndpoint() ?
+				this.partition(distinctIds).stream()
+						.map(chunk -> this.guard.withTimeLimit(() -> CompletableFuture.supplyAsync(
+										() -> this.fetchChunk(chunk, allowStale), this.executor))
+								.exceptionally(e -> allowStale ? this.staleOf(chunk) : Collections.<Integer, T>emptyMap()))
+						.collect(Collectors.toList())
+				: distinctIds.stream()
+						.map(id -> this.guard.withTimeLimit(() -> CompletableFuture.supplyAsync(
+										() -> this.fetchOne(id, allowStale), this.executor))
+								.exceptionally(e -> allowStale ? this.staleOf(List.of(id))
+										: Collections.<Integer, T>emptyMap()))
+						.collect(Collectors.toList());
+
+		return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+				.thenApply(v -> {
+					final Map<Integer, T> resolved = new HashMap<>(cached);
+					futures.forEach(future -> resolved.putAll(future.join()));
+					return resolved;
+				});
+	}
+
+	private Map<Integer, T> staleOf(final Collection<Integer> ids) {
+		final Map<Integer, T> stale = new HashMap<>();
+		ids.forEach(id -> {
+			final var resource = this.cache.getStale(id);
+			if (resource != null)
+				stale.put(id, resource);
+		});
+		if (!stale.isEmpty())
+			log.warn("Serving {} stale {} out of {} requested", stale.size(), this.type.getSimpleName(), ids.size());
+		return stale;
+	}
+
+	private boolean hasBatchEndpoint() {
+		return this.serviceProperties.getBatchUrl() != null
+				&& !this.serviceProperties.getBatchUrl().isBlank();
+	}
+
+	private List<List<Integer>> partition(final Collection<Integer> ids) {
+		final int batchSize = Math.max(1, this.serviceProperties.getBatchSize());
+		final List<List<Integer>> chunks = new ArrayList<>();
+		List<Integer> chunk = new ArrayList<>(batchSize);
+		for (final Integer id : ids) {
+			chunk.add(id);
+			if (chunk.size() == batchSize) {
+				chunks.add(chunk);
+				chunk = new ArrayList<>(batchSize);
+			}
+		}
+		if (!chunk.isEmpty())
+			chunks.add(chunk);
+		return chunks;
+	}
+
+	private Map<Integer, T> fetchOne(final Integer id, final boolean allowStale) {
+		try {
+			return (allowStale ? this.findById(id) : this.findByIdFresh(id))
+					.map(resource -> Collections.singletonMap(id, resource))
+					.orElseGet(() -> {
+						log.warn("{} {} not found", this.type.getSimpleName(), id);
+						return Collections.emptyMap();
+					});
+		}
+		catch (RestClientException e) {
+			log.warn("Failed to fetch {} with id: {}", this.type.getSimpleName(), id, e);
+			return Collections.emptyMap();
+		}
+	}
+
+	private Map<Integer, T> fetchChunk(final List<Integer> ids, final boolean allowStale) {
+		final var claim = this.singleFlight.claim(ids);
+		final Map<Integer, T> resolved = new HashMap<>();
+		if (!claim.getOwned().isEmpty()) {
+			try {
+				resolved.putAll(this.fetchOwnedChunk(claim));
+			}
+			catch (RestClientException e) {
+				if (allowStale)
+					resolved.putAll(this.staleOf(claim.getOwned()));
+			}
+		}
+
+		// Ids fetched by another caller right now are awaited rather than requested again
+		claim.getJoined().forEach((id, flight) -> {
+			try {
+				this.singleFlight.join(id, flight).ifPresent(resource -> resolved.put(id, resource));
+			}
+			catch (RuntimeException e) {
+				if (allowStale)
+					resolved.putAll(this.staleOf(List.of(id)));
+			}
+		});
+		return resolved;
+	}
+
+	private Map<Integer, T> fetchOwnedChunk(final SingleFlight.Claim<Optional<T>> claim) {
+		final var ids = List.copyOf(claim.getOwned());
+		final var sample = this.startCall();
+		try {
+			final var joinedIds = ids.stream()
+					.map(String::valueOf)
+					.collect(Collectors.joining(","));
+			final var response = this.guard.idempotentCall(() -> this.restTemplate.exchange(
+					this.serviceProperties.getBatchUrl(),
+					HttpMethod.GET,
+					null,
+					this.collectionType,
+					joinedIds)
+					.getBody());
+			this.recordCall(sample, "batch", ShippingMetrics.SUCCESS);
+			final Map<Integer, T> resolved = response == null || response.getCollection() == null ?
+					Collections.emptyMap()
+					: response.getCollection().stream()
+							.filter(resource -> resource != null && this.idExtractor.apply(resource) != null)
+							.collect(Collectors.toMap(this.idExtractor, Function.identity(), (first, second) -> first));
+			ids.forEach(id -> {
+				if (resolved.containsKey(id))
+					this.cache.put(id, resolved.get(id));
+				else
+					this.cache.putMissing(id);
+				this.singleFlight.complete(claim, id, Optional.ofNullable(resolved.get(id)));
+			});
+			return resolved;
+		}
+		catch (RestClientException e) {
+			// Callers joining these lookups fall back to stale copies themselves, if they may
+			this.recordCall(sample, "batch", ShippingMetrics.ERROR);
+			log.warn("Failed to fetch {} batch of {} ids", this.type.getSimpleName(), ids.size(), e);
+			ids.forEach(id -> this.singleFlight.fail(claim, id, e));
+			throw e;
+		}
+		catch (RuntimeException | Error e) {
+			ids.forEach(id -> this.singleFlight.fail(claim, id, e));
+			throw e;
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.selimhorri.app.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.selimhorri.app.config.client.ClientProperties;
+import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.OrderStatus;
+import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+import com.selimhorri.app.metrics.ShippingMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class OrderServiceClient extends AbstractRemoteLookupClient<OrderDto> {
+
+	private final RestTemplate restTemplate;
+
+	public OrderServiceClient(
+			@Qualifier("orderRestTemplate") final RestTemplate restTemplate,
+			@Qualifier("clientLookupExecutor") final Executor executor,
+			final ClientProperties clientProperties,
+			final MeterRegistry meterRegistry,
+			final RemoteCallGuardFactory guardFactory,
+			final ShippingMetrics metrics) {
+		super("order",
+				restTemplate,
+				executor,
+				clientProperties.getOrder(),
+				AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL,
+				OrderDto.class,
+				new ParameterizedTypeReference<DtoCollectionResponse<OrderDto>>() {},
+				OrderDto::getOrderId,
+				meterRegistry,
+				guardFactory,
+				metrics);
+		this.restTemplate = restTemplate;
+	}
+
+	/**
+	 * Asks ORDER-SERVICE to move the order to its next status, the cached order is dropped.
+	 * @throws RestClientException when the call failed
+	 */
+	public void updateStatus(final Integer orderId) {
+		final var sample = this.startCall();
+		try {
+			this.getGuard().call(() -> this.restTemplate.patchForObject(
+					AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/" + orderId + "/status",
+					null,
+					Void.class));
+			this.recordCall(sample, "update_status", ShippingMetrics.SUCCESS);
+		}
+		catch (RestClientException e) {
+			this.recordCall(sample, "update_status", ShippingMetrics.ERROR);
+			throw e;
+		}
+		finally {
+			this.evict(orderId);
+		}
+	}
+
+	/**
+	 * Orders outside ORDERED status are recorded as filtered, reads drop their shippings.
+	 */
+	@Override
+	protected String outcomeOf(final OrderDto order) {
+		return OrderStatus.ORDERED.name().equals(order.getOrderStatus()) ?
+				ShippingMetrics.SUCCESS : ShippingMetrics.FILTERED;
+	}
+
+	/**
+	 * Non blocking variant of {@link #updateStatus(Integer)}, run on the bounded lookup executor.
+	 */
+	public CompletableFuture<Void> updateStatusAsync(final Integer orderId) {
+		return CompletableFuture.runAsync(() -> this.updateStatus(orderId), this.getExecutor());
+	}
+
+}
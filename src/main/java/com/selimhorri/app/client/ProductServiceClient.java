@@ -0,0 +1,41 @@
+package com.selimhorri.app.client;
+
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import com.selimhorri.app.config.client.ClientProperties;
+import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+import com.selimhorri.app.metrics.ShippingMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class ProductServiceClient extends AbstractRemoteLookupClient<ProductDto> {
+
+	public ProductServiceClient(
+			@Qualifier("productRestTemplate") final RestTemplate restTemplate,
+			@Qualifier("clientLookupExecutor") final Executor executor,
+			final ClientProperties clientProperties,
+			final MeterRegistry meterRegistry,
+			final RemoteCallGuardFactory guardFactory,
+			final ShippingMetrics metrics) {
+		super("product",
+				restTemplate,
+				executor,
+				clientProperties.getProduct(),
+				AppConstant.DiscoveredDomainsApi.PRODUCT_SERVICE_API_URL,
+				ProductDto.class,
+				new ParameterizedTypeReference<DtoCollectionResponse<ProductDto>>() {},
+				ProductDto::getProductId,
+				meterRegistry,
+				guardFactory,
+				metrics);
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.selimhorri.app.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.web.client.ResourceAccessException;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+
+/**
+ * Bulkhead, circuit breaker, retry and time limiter of one downstream service.
+ * Calls rejected by a guard surface as {@link ResourceAccessException}, like any other
+ * unreachable service, so callers handle a single family of failures.
+ */
+public class RemoteCallGuard {
+
+	private final Bulkhead bulkhead;
+	private final CircuitBreaker circuitBreaker;
+	private final Retry retry;
+	private final TimeLimiter timeLimiter;
+	private final ScheduledExecutorService scheduler;
+
+	public RemoteCallGuard(
+			final Bulkhead bulkhead,
+			final CircuitBreaker circuitBreaker,
+			final Retry retry,
+			final TimeLimiter timeLimiter,
+			final ScheduledExecutorService scheduler) {
+		this.bulkhead = bulkhead;
+		this.circuitBreaker = circuitBreaker;
+		this.retry = retry;
+		this.timeLimiter = timeLimiter;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Guards a call that must not be repeated, it is never retried.
+	 */
+	public <R> R call(final Supplier<R> call) {
+		return this.translate(CircuitBreaker.decorateSupplier(this.circuitBreaker,
+				Bulkhead.decorateSupplier(this.bulkhead, call)));
+	}
+
+	/**
+	 * Guards an idempotent call, retried with jittered backoff on transient failures.
+	 */
+	public <R> R idempotentCall(final Supplier<R> call) {
+		return this.translate(Retry.decorateSupplier(this.retry,
+				CircuitBreaker.decorateSupplier(this.circuitBreaker,
+						Bulkhead.decorateSupplier(this.bulkhead, call))));
+	}
+
+	/**
+	 * Completes the future with a {@link ResourceAccessException} once the time limit is exceeded.
+	 * The limit applies to the whole call, retries of an {@link #idempotentCall(Supplier)} included,
+	 * so it must exceed the retry budget or the retries never get to run.
+	 */
+	public <R> CompletableFuture<R> withTimeLimit(final Supplier<CompletableFuture<R>> call) {
+		return this.timeLimiter.executeCompletionStage(this.scheduler, call)
+				.toCompletableFuture()
+				.handle((result, e) -> {
+					if (e == null)
+						return result;
+					final var cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+					if (cause instanceof TimeoutException)
+						throw new CompletionException(new ResourceAccessException(
+								this.timeLimiter.getName() + " did not answer in time"));
+					throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+				});
+	}
+
+	private <R> R translate(final Supplier<R> guardedCall) {
+		try {
+			return guardedCall.get();
+		}
+		catch (CallNotPermittedException | BulkheadFullException e) {
+			throw new ResourceAccessException(e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.selimhorri.app.client;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+
+/**
+ * Builds the {@link RemoteCallGuard} of a downstream service from the resilience4j
+ * instances of the same name configured under {@code resilience4j.*.instances}.
+ */
+@Component
+public class RemoteCallGuardFactory {
+
+	private final BulkheadRegistry bulkheadRegistry;
+	private final CircuitBreakerRegistry circuitBreakerRegistry;
+	private final RetryRegistry retryRegistry;
+	private final TimeLimiterRegistry timeLimiterRegistry;
+	private final ScheduledExecutorService scheduler;
+
+	public RemoteCallGuardFactory(
+			final BulkheadRegistry bulkheadRegistry,
+			final CircuitBreakerRegistry circuitBreakerRegistry,
+			final RetryRegistry retryRegistry,
+			final TimeLimiterRegistry timeLimiterRegistry,
+			@Qualifier("clientTimeoutScheduler") final ThreadPoolTaskScheduler clientTimeoutScheduler) {
+		this.bulkheadRegistry = bulkheadRegistry;
+		this.circuitBreakerRegistry = circuitBreakerRegistry;
+		this.retryRegistry = retryRegistry;
+		this.timeLimiterRegistry = timeLimiterRegistry;
+		this.scheduler = clientTimeoutScheduler.getScheduledExecutor();
+	}
+
+	public RemoteCallGuard forInstance(final String name) {
+		return new RemoteCallGuard(
+				this.bulkheadRegistry.bulkhead(name),
+				this.circuitBreakerRegistry.circuitBreaker(name),
+				this.retryRegistry.retry(name),
+				this.timeLimiterRegistry.timeLimiter(name),
+				this.scheduler);
+	}
+
+}
@@ -0,0 +1,122 @@
+package com.selimhorri.app.client;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.selimhorri.app.config.client.ClientProperties.CacheProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-process cache of remote resources by id. Ids the downstream service answered with 404
+ * are kept apart, under their own short TTL, so unknown ids are not looked up again.
+ * The last known good copy of each resource outlives its TTL in a stale store, served
+ * only while the downstream service is unavailable.
+ */
+public class RemoteLookupCache<T> {
+
+	private final String name;
+	private final boolean enabled;
+	private final Cache<Integer, T> values;
+	private final Cache<Integer, Boolean> misses;
+	private final Cache<Integer, T> stale;
+
+	public RemoteLookupCache(final String name, final CacheProperties cacheProperties, final MeterRegistry meterRegistry) {
+		this.name = name;
+		this.enabled = cacheProperties.isEnabled();
+
+		final var valuesBuilder = Caffeine.newBuilder()
+				.maximumSize(cacheProperties.getMaximumSize())
+				.recordStats();
+		if (cacheProperties.getExpireAfterWrite() != null)
+			valuesBuilder.expireAfterWrite(cacheProperties.getExpireAfterWrite());
+		if (cacheProperties.getExpireAfterAccess() != null)
+			valuesBuilder.expireAfterAccess(cacheProperties.getExpireAfterAccess());
+		this.values = valuesBuilder.build();
+
+		this.misses = Caffeine.newBuilder()
+				.maximumSize(cacheProperties.getMaximumSize())
+				.expireAfterWrite(cacheProperties.getNegativeTtl())
+				.recordStats()
+				.build();
+
+		this.stale = cacheProperties.getStaleTtl() == null ? null : Caffeine.newBuilder()
+				.maximumSize(cacheProperties.getMaximumSize())
+				.expireAfterWrite(cacheProperties.getStaleTtl())
+				.recordStats()
+				.build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, this.values, name + "Cache");
+		CaffeineCacheMetrics.monitor(meterRegistry, this.misses, name + "NegativeCache");
+		if (this.stale != null)
+			CaffeineCacheMetrics.monitor(meterRegistry, this.stale, name + "StaleCache");
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public T getIfPresent(final Integer id) {
+		return this.enabled ? this.values.getIfPresent(id) : null;
+	}
+
+	public Map<Integer, T> getAllPresent(final Collection<Integer> ids) {
+		return this.enabled ? this.values.getAllPresent(ids) : Map.of();
+	}
+
+	public boolean isKnownMissing(final Integer id) {
+		return this.enabled && this.misses.getIfPresent(id) != null;
+	}
+
+	/**
+	 * Last known good copy of the resource, regardless of its TTL.
+	 */
+	public T getStale(final Integer id) {
+		return this.stale == null ? null : this.stale.getIfPresent(id);
+	}
+
+	public void put(final Integer id, final T value) {
+		if (this.stale != null)
+			this.stale.put(id, value);
+		if (this.enabled) {
+			this.values.put(id, value);
+			this.misses.invalidate(id);
+		}
+	}
+
+	public void putMissing(final Integer id) {
+		if (this.enabled) {
+			this.misses.put(id, Boolean.TRUE);
+			this.values.invalidate(id);
+		}
+	}
+
+	public void invalidate(final Integer id) {
+		this.values.invalidate(id);
+		this.misses.invalidate(id);
+	}
+
+	public void invalidateAll() {
+		this.values.invalidateAll();
+		this.misses.invalidateAll();
+		if (this.stale != null)
+			this.stale.invalidateAll();
+	}
+
+	public long size() {
+		return this.values.estimatedSize();
+	}
+
+	public long missingSize() {
+		return this.misses.estimatedSize();
+	}
+
+	public CacheStats stats() {
+		return this.values.stats();
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.selimhorri.app.client;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator view of the remote lookup caches, {@code /actuator/remotecaches}.
+ * A DELETE on {@code /actuator/remotecaches/{name}} drops the whole cache, or a single
+ * entry when an {@code id} parameter is given.
+ */
+@Component
+@Endpoint(id = "remotecaches")
+public class RemoteLookupCacheEndpoint {
+
+	private final Map<String, RemoteLookupCache<?>> caches;
+
+	public RemoteLookupCacheEndpoint(final List<AbstractRemoteLookupClient<?>> clients) {
+		this.caches = clients.stream()
+				.map(AbstractRemoteLookupClient::getCache)
+				.collect(Collectors.toMap(RemoteLookupCache::getName, Function.identity(),
+						(first, second) -> first, LinkedHashMap::new));
+	}
+
+	@ReadOperation
+	public Map<String, Map<String, Object>> caches() {
+		return this.caches.values().stream()
+				.collect(Collectors.toMap(RemoteLookupCache::getName, this::describe,
+						(first, second) -> first, LinkedHashMap::new));
+	}
+
+	@ReadOperation
+	public Map<String, Object> cache(@Selector final String name) {
+		final var cache = this.caches.get(name);
+		return cache == null ? null : this.describe(cache);
+	}
+
+	@DeleteOperation
+	public void invalidate(@Selector final String name, @Nullable final Integer id) {
+		final var cache = this.caches.get(name);
+		if (cache == null)
+			return;
+		if (id == null)
+			cache.invalidateAll();
+		else
+			cache.invalidate(id);
+	}
+
+	private Map<String, Object> describe(final RemoteLookupCache<?> cache) {
+		final var stats = cache.stats();
+		final Map<String, Object> description = new LinkedHashMap<>();
+		description.put("size", cache.size());
+		description.put("missingSize", cache.missingSize());
+		description.put("hitCount", stats.hitCount());
+		description.put("missCount", stats.missCount());
+		description.put("hitRate", stats.hitRate());
+		description.put("evictionCount", stats.evictionCount());
+		return description;
+	}
+
+}
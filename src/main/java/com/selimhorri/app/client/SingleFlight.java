@@ -0,0 +1,148 @@
+package com.selimhorri.app.client;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.web.client.ResourceAccessException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Registry of in-flight lookups by id. A caller asking for an id that is already being
+ * fetched waits on the running lookup instead of sending a duplicate request.
+ * Lookups are only registered by the thread running them, so waiting on one never
+ * waits on work still sitting in an executor queue. A caller waits at most the join timeout,
+ * then gives up on the lookup and drops it from the registry so the next caller fetches again.
+ */
+public class SingleFlight<V> {
+
+	private final ConcurrentMap<Integer, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final Duration joinTimeout;
+	private final Counter coalesced;
+
+	public SingleFlight(final String name, final Duration joinTimeout, final MeterRegistry meterRegistry) {
+		this.joinTimeout = joinTimeout;
+		this.coalesced = Counter.builder("remote.lookup.coalesced")
+				.description("Lookups served by joining an identical lookup already in flight")
+				.tag("client", name)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Runs the call for this id, or joins the one already running.
+	 */
+	public V execute(final Integer id, final Supplier<V> call) {
+		final var claim = this.claim(Set.of(id));
+		if (claim.getOwned().isEmpty())
+			return this.join(id, claim.getJoined().get(id));
+
+		try {
+			final var value = call.get();
+			this.complete(claim, id, value);
+			return value;
+		}
+		catch (final Throwable e) {
+			this.fail(claim, id, e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Registers the caller as owner of the ids nobody is fetching yet. The caller must
+	 * {@link #complete(Claim, Integer, Object)} or {@link #fail(Claim, Integer, Throwable)}
+	 * each owned id.
+	 */
+	public Claim<V> claim(final Collection<Integer> ids) {
+		final Map<Integer, CompletableFuture<V>> owned = new HashMap<>();
+		final Map<Integer, CompletableFuture<V>> joined = new HashMap<>();
+		ids.forEach(id -> {
+			final var flight = new CompletableFuture<V>();
+			final var running = this.inFlight.putIfAbsent(id, flight);
+			if (running == null)
+				owned.put(id, flight);
+			else
+				joined.put(id, running);
+		});
+		if (!joined.isEmpty())
+			this.coalesced.increment(joined.size());
+		return new Claim<>(owned, joined);
+	}
+
+	/**
+	 * Completes the caller's own lookup of an id it claimed. The registry entry is only removed
+	 * while it is still that lookup, a joiner that timed out may have dropped it and another
+	 * caller registered a new one since.
+	 */
+	public void complete(final Claim<V> claim, final Integer id, final V value) {
+		final var flight = claim.owned.get(id);
+		this.inFlight.remove(id, flight);
+		flight.complete(value);
+	}
+
+	/**
+	 * Fails the caller's own lookup of an id it claimed, see {@link #complete(Claim, Integer, Object)}.
+	 */
+	public void fail(final Claim<V> claim, final Integer id, final Throwable e) {
+		final var flight = claim.owned.get(id);
+		this.inFlight.remove(id, flight);
+		flight.completeExceptionally(e);
+	}
+
+	/**
+	 * Waits for a joined lookup, rethrowing its failure as thrown by its owner. A lookup still
+	 * running after the join timeout fails this caller with a {@link ResourceAccessException}.
+	 */
+	public V join(final Integer id, final CompletableFuture<V> flight) {
+		try {
+			return flight.get(this.joinTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new CompletionException(e.getCause());
+		}
+		catch (TimeoutException e) {
+			this.inFlight.remove(id, flight);
+			throw new ResourceAccessException("Lookup of id " + id + " still running after " + this.joinTimeout);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResourceAccessException("Interrupted while waiting for the lookup of id " + id);
+		}
+	}
+
+	public static class Claim<V> {
+
+		private final Map<Integer, CompletableFuture<V>> owned;
+		private final Map<Integer, CompletableFuture<V>> joined;
+
+		Claim(final Map<Integer, CompletableFuture<V>> owned, final Map<Integer, CompletableFuture<V>> joined) {
+			this.owned = owned;
+			this.joined = joined;
+		}
+
+		public Set<Integer> getOwned() {
+			return this.owned.keySet();
+		}
+
+		public Map<Integer, CompletableFuture<V>> getJoined() {
+			return this.joined;
+		}
+
+	}
+
+}
@@ -1,22 +1,131 @@
 package com.selimhorri.app.config.client;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.client.RestTemplate;
 
+import com.selimhorri.app.config.client.ClientProperties.HttpProperties;
+import com.selimhorri.app.config.client.ClientProperties.WireFormat;
+import com.selimhorri.app.metrics.EndpointContext;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Each downstream service gets its own load balanced {@link RestTemplate} backed by its own
+ * connection pool, so a slow service cannot starve the others of connections. The primary
+ * template serves any other outbound call. Responses may come as JSON, Smile or CBOR, the
+ * configured wire format is asked for first, and gzip is negotiated by the HTTP client.
+ */
 @Configuration
+@EnableConfigurationProperties(ClientProperties.class)
 public class ClientConfig {
 
 	@LoadBalanced
 	@Bean
-	public RestTemplate restTemplateBean() {
-		CloseableHttpClient httpClient = HttpClients.createDefault();
-		HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
-		return new RestTemplate(requestFactory);
+	@Primary
+	public RestTemplate restTemplateBean(final ClientProperties clientProperties, final MeterRegistry meterRegistry) {
+		return pooledRestTemplate("default", clientProperties.getHttp(), meterRegistry);
+	}
+
+	@LoadBalanced
+	@Bean
+	public RestTemplate productRestTemplate(final ClientProperties clientProperties, final MeterRegistry meterRegistry) {
+		return pooledRestTemplate("product", clientProperties.getProduct().getHttp(), meterRegistry);
+	}
+
+	@LoadBalanced
+	@Bean
+	public RestTemplate orderRestTemplate(final ClientProperties clientProperties, final MeterRegistry meterRegistry) {
+		return pooledRestTemplate("order", clientProperties.getOrder().getHttp(), meterRegistry);
+	}
+
+	@Bean
+	public ThreadPoolTaskExecutor clientLookupExecutor(final ClientProperties clientProperties) {
+		final var lookup = clientProperties.getLookup();
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(lookup.getParallelism());
+		executor.setMaxPoolSize(lookup.getParallelism());
+		executor.setQueueCapacity(lookup.getQueueCapacity());
+		executor.setThreadNamePrefix("client-lookup-");
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		// Downstream call metrics are tagged with the endpoint that asked for them
+		executor.setTaskDecorator(EndpointContext::propagate);
+		return executor;
+	}
+
+	/**
+	 * Fires the time limits of downstream calls, see {@code resilience4j.timelimiter}.
+	 */
+	@Bean
+	public ThreadPoolTaskScheduler clientTimeoutScheduler() {
+		final var scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setPoolSize(2);
+		scheduler.setThreadNamePrefix("client-timeout-");
+		scheduler.setRemoveOnCancelPolicy(true);
+		return scheduler;
+	}
+
+	@Bean
+	public MeterBinder clientLookupExecutorMetrics(
+			@Qualifier("clientLookupExecutor") final ThreadPoolTaskExecutor clientLookupExecutor) {
+		return meterRegistry -> new ExecutorServiceMetrics(clientLookupExecutor.getThreadPoolExecutor(),
+				"clientLookupExecutor", Tags.empty()).bindTo(meterRegistry);
+	}
+
+	private static RestTemplate pooledRestTemplate(final String name, final HttpProperties http,
+			final MeterRegistry meterRegistry) {
+		final var connectionManager = new MeteredPoolingConnectionManager(name, meterRegistry);
+		connectionManager.setMaxTotal(http.getMaxTotal());
+		connectionManager.setDefaultMaxPerRoute(http.getMaxPerRoute());
+		connectionManager.setValidateAfterInactivity((int) http.getValidateAfterInactivity().toMillis());
+
+		final long keepAliveMillis = http.getKeepAlive().toMillis();
+		final CloseableHttpClient httpClient = HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectTimeout((int) http.getConnectTimeout().toMillis())
+						.setSocketTimeout((int) http.getReadTimeout().toMillis())
+						.setConnectionRequestTimeout((int) http.getConnectionRequestTimeout().toMillis())
+						.build())
+				.setKeepAliveStrategy((response, context) -> {
+					final long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+							.getKeepAliveDuration(response, context);
+					return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+				})
+				.evictExpiredConnections()
+				.evictIdleConnections(http.getMaxIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+				.build();
+
+		final var restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+		if (http.getWireFormat() != WireFormat.JSON) {
+			final var accept = List.of(http.getWireFormat().getMediaType(),
+					new MediaType(MediaType.APPLICATION_JSON, Map.of("q", "0.9")));
+			restTemplate.getInterceptors().add((request, body, execution) -> {
+				request.getHeaders().setAccept(accept);
+				return execution.execute(request, body);
+			});
+		}
+		return restTemplate;
 	}
 
 }
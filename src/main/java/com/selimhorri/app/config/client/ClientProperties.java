@@ -0,0 +1,155 @@
+package com.selimhorri.app.config.client;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.MediaType;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.client")
+@Data
+public class ClientProperties {
+
+	private LookupProperties lookup = new LookupProperties();
+	private HttpProperties http = new HttpProperties();
+	private ServiceProperties product = new ServiceProperties();
+	private ServiceProperties order = new ServiceProperties();
+
+	@Data
+	public static class LookupProperties {
+
+		/**
+		 * Maximum number of downstream lookups running at the same time.
+		 */
+		private int parallelism = 8;
+
+		/**
+		 * Lookups waiting for a free worker, beyond this the caller runs the lookup itself.
+		 */
+		private int queueCapacity = 500;
+
+	}
+
+	@Data
+	public static class ServiceProperties {
+
+		/**
+		 * Optional multi-id endpoint, the {ids} variable is expanded to a comma separated id list.
+		 * When empty, ids are resolved with parallel single-id calls.
+		 */
+		private String batchUrl;
+
+		/**
+		 * Maximum number of ids sent in one multi-id call.
+		 */
+		private int batchSize = 50;
+
+		/**
+		 * How long a caller waits on an identical lookup already in flight before failing,
+		 * at least the time limit of the service so joiners do not give up on a lookup still allowed to run.
+		 */
+		private Duration joinTimeout = Duration.ofSeconds(10);
+
+		private HttpProperties http = new HttpProperties();
+		private CacheProperties cache = new CacheProperties();
+
+	}
+
+	@Data
+	public static class HttpProperties {
+
+		/**
+		 * Maximum number of pooled connections over all routes.
+		 */
+		private int maxTotal = 100;
+
+		/**
+		 * Maximum number of pooled connections to a single downstream instance.
+		 */
+		private int maxPerRoute = 20;
+
+		private Duration connectTimeout = Duration.ofSeconds(2);
+
+		private Duration readTimeout = Duration.ofSeconds(5);
+
+		/**
+		 * How long a caller waits to lease a connection from an exhausted pool.
+		 */
+		private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+		/**
+		 * Upper bound on how long an idle connection is kept alive, shorter server hints win.
+		 */
+		private Duration keepAlive = Duration.ofSeconds(30);
+
+		/**
+		 * Connections idle for longer than this are closed by the background evictor.
+		 */
+		private Duration maxIdleTime = Duration.ofSeconds(30);
+
+		/**
+		 * Pooled connections idle for longer than this are re-validated before reuse.
+		 */
+		private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+		/**
+		 * Format asked for first in the Accept header, JSON stays acceptable as a fallback
+		 * for services that cannot produce it.
+		 */
+		private WireFormat wireFormat = WireFormat.JSON;
+
+	}
+
+	public enum WireFormat {
+
+		JSON(MediaType.APPLICATION_JSON),
+		SMILE(new MediaType("application", "x-jackson-smile")),
+		CBOR(MediaType.APPLICATION_CBOR);
+
+		private final MediaType mediaType;
+
+		WireFormat(final MediaType mediaType) {
+			this.mediaType = mediaType;
+		}
+
+		public MediaType getMediaType() {
+			return this.mediaType;
+		}
+
+	}
+
+	@Data
+	public static class CacheProperties {
+
+		private boolean enabled = true;
+
+		/**
+		 * Upper bound of cached resources, the least valuable entries are evicted first.
+		 */
+		private long maximumSize = 10_000;
+
+		/**
+		 * Entries expire this long after they were fetched, unset to disable.
+		 */
+		private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+		/**
+		 * Entries expire this long after they were last read, unset to disable.
+		 */
+		private Duration expireAfterAccess;
+
+		/**
+		 * How long an id answered with 404 is remembered as missing.
+		 */
+		private Duration negativeTtl = Duration.ofSeconds(30);
+
+		/**
+		 * How long the last known good copy of a resource is kept to be served while
+		 * the downstream service is unavailable, unset to disable.
+		 */
+		private Duration staleTtl = Duration.ofHours(1);
+
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.selimhorri.app.config.client;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+
+/**
+ * Connection pool exporting its pending, leased and available connections as gauges,
+ * along with the time callers waited to lease a connection.
+ */
+class MeteredPoolingConnectionManager extends PoolingHttpClientConnectionManager {
+
+	private final Timer leaseTimer;
+
+	MeteredPoolingConnectionManager(final String name, final MeterRegistry meterRegistry) {
+		super();
+		this.leaseTimer = Timer.builder("httpcomponents.httpclient.pool.lease")
+				.description("Time spent waiting for a pooled connection")
+				.tag("httpclient", name)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+		new PoolingHttpClientConnectionManagerMetricsBinder(this, name).bindTo(meterRegistry);
+	}
+
+	@Override
+	public ConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+		final var connectionRequest = super.requestConnection(route, state);
+		return new ConnectionRequest() {
+
+			@Override
+			public HttpClientConnection get(final long timeout, final TimeUnit timeUnit)
+					throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+				final long start = System.nanoTime();
+				try {
+					return connectionRequest.get(timeout, timeUnit);
+				}
+				finally {
+					leaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				}
+			}
+
+			@Override
+			public boolean cancel() {
+				return connectionRequest.cancel();
+			}
+
+		};
+	}
+
+}
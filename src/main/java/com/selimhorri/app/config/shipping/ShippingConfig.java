@@ -0,0 +1,114 @@
+package com.selimhorri.app.config.shipping;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+@Configuration
+@EnableConfigurationProperties(ShippingProperties.class)
+public class ShippingConfig {
+
+	/**
+	 * Runs shipping requests so servlet container threads are not parked on downstream I/O.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor shippingRequestExecutor(final ShippingProperties shippingProperties,
+			final MeterRegistry meterRegistry) {
+		final var async = shippingProperties.getAsync();
+		return boundedExecutor("shippingRequestExecutor", "shipping-request-", async.getPoolSize(),
+				async.getQueueCapacity(), meterRegistry);
+	}
+
+	/**
+	 * Streams the NDJSON exports. Defining executors of our own makes Spring Boot back off from
+	 * its {@code applicationTaskExecutor}, MVC would otherwise start one unbounded thread per
+	 * streaming response.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor shippingExportExecutor(final ShippingProperties shippingProperties,
+			final MeterRegistry meterRegistry) {
+		final var export = shippingProperties.getExport();
+		return boundedExecutor("shippingExportExecutor", "shipping-export-", export.getPoolSize(),
+				export.getQueueCapacity(), meterRegistry);
+	}
+
+	/**
+	 * Async MVC processing not managed by the endpoints themselves, that is streaming responses,
+	 * runs on the export executor and is cut off after the export timeout.
+	 */
+	@Bean
+	public WebMvcConfigurer shippingAsyncSupport(final ShippingProperties shippingProperties,
+			@Qualifier("shippingExportExecutor") final ThreadPoolTaskExecutor shippingExportExecutor) {
+		return new WebMvcConfigurer() {
+
+			@Override
+			public void configureAsyncSupport(final AsyncSupportConfigurer configurer) {
+				configurer.setTaskExecutor(shippingExportExecutor);
+				configurer.setDefaultTimeout(shippingProperties.getExport().getTimeout().toMillis());
+			}
+
+		};
+	}
+
+	/**
+	 * A full queue rejects further work instead of piling it up.
+	 */
+	private static ThreadPoolTaskExecutor boundedExecutor(final String name, final String threadNamePrefix,
+			final int poolSize, final int queueCapacity, final MeterRegistry meterRegistry) {
+		final var rejections = Counter.builder("executor.rejected")
+				.description("Tasks rejected because the executor queue was full")
+				.tag("name", name)
+				.register(meterRegistry);
+		final var executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix(threadNamePrefix);
+		executor.setRejectedExecutionHandler((task, threadPoolExecutor) -> {
+			rejections.increment();
+			new ThreadPoolExecutor.AbortPolicy().rejectedExecution(task, threadPoolExecutor);
+		});
+		return executor;
+	}
+
+	/**
+	 * Runs the background jobs: polling the order status outbox, see {@code OrderStatusOutboxDispatcher},
+	 * and resyncing the order status projection, one thread each so neither delays the other.
+	 */
+	@Bean
+	public ThreadPoolTaskScheduler shippingTaskScheduler() {
+		final var scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setPoolSize(2);
+		scheduler.setThreadNamePrefix("shipping-task-");
+		scheduler.setWaitForTasksToCompleteOnShutdown(true);
+		return scheduler;
+	}
+
+	@Bean
+	public MeterBinder shippingRequestExecutorMetrics(
+			@Qualifier("shippingRequestExecutor") final ThreadPoolTaskExecutor shippingRequestExecutor) {
+		return meterRegistry -> new ExecutorServiceMetrics(shippingRequestExecutor.getThreadPoolExecutor(),
+				"shippingRequestExecutor", Tags.empty()).bindTo(meterRegistry);
+	}
+
+	@Bean
+	public MeterBinder shippingExportExecutorMetrics(
+			@Qualifier("shippingExportExecutor") final ThreadPoolTaskExecutor shippingExportExecutor) {
+		return meterRegistry -> new ExecutorServiceMetrics(shippingExportExecutor.getThreadPoolExecutor(),
+				"shippingExportExecutor", Tags.empty()).bindTo(meterRegistry);
+	}
+
+}
@@ -0,0 +1,168 @@
+package com.selimhorri.app.config.shipping;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.shipping")
+@Data
+public class ShippingProperties {
+
+	private PageProperties page = new PageProperties();
+	private ExportProperties export = new ExportProperties();
+	private AsyncProperties async = new AsyncProperties();
+	private BatchProperties batch = new BatchProperties();
+	private OutboxProperties outbox = new OutboxProperties();
+	private OrderStatusProperties orderStatus = new OrderStatusProperties();
+	private StatsProperties stats = new StatsProperties();
+
+	@Data
+	public static class PageProperties {
+
+		/**
+		 * Page size used when the caller does not ask for one.
+		 */
+		private int defaultLimit = 50;
+
+		/**
+		 * Hard upper bound of a page, larger requested limits are capped to it.
+		 */
+		private int maxLimit = 500;
+
+	}
+
+	@Data
+	public static class ExportProperties {
+
+		/**
+		 * Rows enriched and written together while streaming an export.
+		 */
+		private int chunkSize = 100;
+
+		/**
+		 * Exports streamed at the same time, each holds a worker for its whole duration.
+		 */
+		private int poolSize = 4;
+
+		/**
+		 * Exports waiting for a free worker, beyond this they are rejected with 503.
+		 */
+		private int queueCapacity = 8;
+
+		/**
+		 * Exports still streaming after this time are cut off.
+		 */
+		private Duration timeout = Duration.ofMinutes(10);
+
+	}
+
+	@Data
+	public static class AsyncProperties {
+
+		/**
+		 * Workers serving shipping requests, off the servlet container threads.
+		 */
+		private int poolSize = 50;
+
+		/**
+		 * Requests waiting for a free worker, beyond this they are rejected with 503.
+		 */
+		private int queueCapacity = 200;
+
+		/**
+		 * Requests not answered within this time are completed with 503.
+		 */
+		private Duration requestTimeout = Duration.ofSeconds(10);
+
+	}
+
+	@Data
+	public static class BatchProperties {
+
+		/**
+		 * Largest number of shippings accepted in one bulk create request.
+		 */
+		private int maxSize = 1000;
+
+	}
+
+	@Data
+	public static class OutboxProperties {
+
+		private boolean enabled = true;
+
+		/**
+		 * Pause between two polls of the outbox for due entries.
+		 */
+		private Duration pollInterval = Duration.ofSeconds(1);
+
+		/**
+		 * Entries claimed and delivered together.
+		 */
+		private int batchSize = 100;
+
+		/**
+		 * Claimed entries not settled within this time are picked up again, by any instance.
+		 */
+		private Duration leaseTimeout = Duration.ofSeconds(30);
+
+		/**
+		 * Delay before the first retry, doubled on each further failure.
+		 */
+		private Duration initialBackoff = Duration.ofSeconds(1);
+
+		/**
+		 * Upper bound of the retry delay.
+		 */
+		private Duration maxBackoff = Duration.ofMinutes(5);
+
+	}
+
+	@Data
+	public static class OrderStatusProperties {
+
+		/**
+		 * Whether the order status projection is resynced from ORDER-SERVICE, at startup and periodically.
+		 */
+		private boolean resyncEnabled = true;
+
+		/**
+		 * Pause between two full resyncs, bounds how long a missed notification goes unnoticed.
+		 */
+		private Duration resyncInterval = Duration.ofMinutes(10);
+
+		/**
+		 * Orders read from ORDER-SERVICE together during a resync.
+		 */
+		private int resyncBatchSize = 200;
+
+	}
+
+	@Data
+	public static class StatsProperties {
+
+		/**
+		 * Whether aggregates are read from the shipping_daily_stats summary, otherwise grouped over order_items.
+		 */
+		private boolean readFromSummary = true;
+
+		/**
+		 * How long an aggregate is served from memory, and may be cached by clients.
+		 */
+		private Duration cacheTtl = Duration.ofSeconds(30);
+
+		/**
+		 * Days covered by daily stats when the caller gives no range.
+		 */
+		private int defaultDays = 30;
+
+		/**
+		 * Longest range of daily stats answered at once.
+		 */
+		private int maxDays = 366;
+
+	}
+
+}
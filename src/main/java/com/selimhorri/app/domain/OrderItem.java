@@ -8,6 +8,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 import org.hibernate.annotations.GenericGenerator;
 
@@ -41,4 +42,24 @@ public final class OrderItem extends AbstractMappedEntity implements Serializabl
 	@Column(name = "is_active")
 	private boolean isActive;
 
+	/*
+	 * Snapshot of the product taken at creation, NULL on rows created before snapshots existed
+	 */
+
+	@Column(name = "product_title", updatable = false)
+	private String productTitle;
+
+	@Column(name = "product_sku", updatable = false)
+	private String productSku;
+
+	@Column(name = "product_image_url", updatable = false)
+	private String productImageUrl;
+
+	@Column(name = "product_price_unit", updatable = false)
+	private Double productPriceUnit;
+
+	@Version
+	@Column(name = "version", nullable = false)
+	private Integer version;
+
 }
@@ -0,0 +1,58 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pending order status change, written with the shipping that causes it and removed once
+ * ORDER-SERVICE has applied it. An order has at most one shipping, hence one entry.
+ */
+@Entity
+@Table(name = "order_status_outbox")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public final class OrderStatusOutbox implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@Column(name = "order_id", nullable = false, updatable = false)
+	private Integer orderId;
+
+	@Column(name = "created_at", nullable = false, updatable = false)
+	private Instant createdAt;
+
+	@Column(name = "attempts", nullable = false)
+	private int attempts;
+
+	@Column(name = "next_attempt_at", nullable = false)
+	private Instant nextAttemptAt;
+
+	@Column(name = "claim_token")
+	private String claimToken;
+
+	@Column(name = "last_error")
+	private String lastError;
+
+	public static OrderStatusOutbox of(final Integer orderId) {
+		final var now = Instant.now();
+		return OrderStatusOutbox.builder()
+				.orderId(orderId)
+				.createdAt(now)
+				.nextAttemptAt(now)
+				.build();
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Local copy of the status of an order, kept up to date from ORDER-SERVICE status changes
+ * so reads can filter shippings by order status in SQL.
+ */
+@Entity
+@Table(name = "order_status")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public final class OrderStatusProjection implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@Column(name = "order_id", nullable = false, updatable = false)
+	private Integer orderId;
+
+	@Column(name = "order_status", nullable = false)
+	private String orderStatus;
+
+	/** When the status took effect, older changes arriving late are ignored */
+	@Column(name = "updated_at", nullable = false)
+	private Instant updatedAt;
+
+}
@@ -0,0 +1,58 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Active shippings and their ordered units per product and creation day, kept up to date
+ * by every write so aggregates do not scan {@code order_items}.
+ */
+@Entity
+@Table(name = "shipping_daily_stats")
+@IdClass(ShippingDailyStats.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public final class ShippingDailyStats implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@Column(name = "product_id", nullable = false, updatable = false)
+	private Integer productId;
+
+	@Id
+	@Column(name = "stats_day", nullable = false, updatable = false)
+	private LocalDate statsDay;
+
+	@Column(name = "shippings", nullable = false)
+	private long shippings;
+
+	@Column(name = "ordered_quantity", nullable = false)
+	private long orderedQuantity;
+
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Data
+	public static class Key implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private Integer productId;
+		private LocalDate statsDay;
+
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.selimhorri.app.domain.projection;
+
+/**
+ * Shippings grouped by the calendar fields of their creation time, which every dialect
+ * can extract.
+ */
+public interface DailyStatsView {
+	
+	Integer getYear();
+	Integer getMonth();
+	Integer getDay();
+	Long getShippings();
+	Long getOrderedQuantity();
+	
+}
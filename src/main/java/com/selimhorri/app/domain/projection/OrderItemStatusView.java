@@ -0,0 +1,11 @@
+package com.selimhorri.app.domain.projection;
+
+/**
+ * Shipping view along with the status the local order status projection holds for its
+ * order, null when the order is not known there.
+ */
+public interface OrderItemStatusView extends OrderItemView {
+	
+	String getOrderStatus();
+	
+}
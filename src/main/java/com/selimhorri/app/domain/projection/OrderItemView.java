@@ -0,0 +1,23 @@
+package com.selimhorri.app.domain.projection;
+
+import java.time.Instant;
+
+/**
+ * Read-only view of the columns the shipping read path maps to DTOs and derives
+ * validators from, loaded without managed entities.
+ */
+public interface OrderItemView {
+	
+	Integer getOrderId();
+	Integer getProductId();
+	Integer getOrderedQuantity();
+	Boolean getActive();
+	Integer getVersion();
+	Instant getCreatedAt();
+	Instant getUpdatedAt();
+	String getProductTitle();
+	String getProductSku();
+	String getProductImageUrl();
+	Double getProductPriceUnit();
+	
+}
@@ -0,0 +1,37 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class OrderItemBatchResultDto implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Position of the item in the submitted list.
+	 */
+	private int index;
+	private Integer orderId;
+	private Integer productId;
+	private boolean success;
+	
+	@JsonInclude(Include.NON_NULL)
+	private String error;
+	
+	@JsonProperty("shipping")
+	@JsonInclude(Include.NON_NULL)
+	private OrderItemDto orderItemDto;
+	
+}
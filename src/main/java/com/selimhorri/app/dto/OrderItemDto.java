@@ -23,6 +23,12 @@ public class OrderItemDto implements Serializable {
 	private Integer orderId;
 	private Integer orderedQuantity;
 	
+	/**
+	 * Only given when soft deleted shippings were asked for.
+	 */
+	@JsonInclude(Include.NON_NULL)
+	private Boolean active;
+	
 	@JsonProperty("product")
 	@JsonInclude(Include.NON_NULL)
 	private ProductDto productDto;
@@ -0,0 +1,9 @@
+package com.selimhorri.app.dto;
+
+/**
+ * Related resources a shipping read may join on, each costing a call to its service.
+ */
+public enum OrderItemExpand {
+	PRODUCT,
+	ORDER
+}
@@ -0,0 +1,41 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class OrderItemLookupResultDto implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	public enum Status {
+		/** The shipping is answered */
+		FOUND,
+		/** No active shipping exists for the order */
+		NOT_FOUND,
+		/** The shipping exists but is not visible: its order is not ORDERED, or its product or order is unavailable */
+		FILTERED
+	}
+	
+	private Integer orderId;
+	private Status status;
+	
+	@JsonInclude(Include.NON_NULL)
+	private String error;
+	
+	@JsonProperty("shipping")
+	@JsonInclude(Include.NON_NULL)
+	private OrderItemDto orderItemDto;
+	
+}
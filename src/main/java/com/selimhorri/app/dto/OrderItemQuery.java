@@ -0,0 +1,62 @@
+package com.selimhorri.app.dto;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What a shipping page read selects and how much of it is enriched.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class OrderItemQuery {
+
+	/**
+	 * Order id the page starts after, the first page when absent.
+	 */
+	private Integer after;
+
+	private Integer limit;
+
+	private Integer productId;
+
+	/**
+	 * Inclusive lower bound of the creation time.
+	 */
+	private Instant createdAfter;
+
+	/**
+	 * Exclusive upper bound of the creation time.
+	 */
+	private Instant createdBefore;
+
+	/**
+	 * Inclusive lower bound of the last modification time, the creation time of a shipping never
+	 * modified since.
+	 */
+	private Instant updatedSince;
+
+	/**
+	 * Whether soft deleted shippings are read too, they are then told apart by their active flag.
+	 */
+	private boolean includeInactive;
+
+	/**
+	 * Related resources joined on, none answers the local columns without any downstream call.
+	 */
+	@Builder.Default
+	private Set<OrderItemExpand> expand = EnumSet.allOf(OrderItemExpand.class);
+
+	/**
+	 * Whether products are read from PRODUCT-SERVICE even for rows holding a snapshot.
+	 */
+	private boolean liveProducts;
+
+}
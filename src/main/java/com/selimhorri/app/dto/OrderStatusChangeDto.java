@@ -0,0 +1,31 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Status an order moved to, as notified by ORDER-SERVICE.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class OrderStatusChangeDto implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Integer orderId;
+
+	private String orderStatus;
+
+	/**
+	 * When the status took effect, the time of receipt when not given.
+	 */
+	private Instant changedAt;
+
+}
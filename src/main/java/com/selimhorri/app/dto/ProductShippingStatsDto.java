@@ -0,0 +1,25 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Active shippings of a product and the units they order.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ProductShippingStatsDto implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Integer productId;
+	private Long shippings;
+	private Long orderedQuantity;
+
+}
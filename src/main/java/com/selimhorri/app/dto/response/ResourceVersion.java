@@ -0,0 +1,28 @@
+package com.selimhorri.app.dto.response;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Validators of a representation, answered as {@code ETag} and {@code Last-Modified}.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ResourceVersion implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	/** Strong entity tag, quoted */
+	private String etag;
+	
+	/** Latest change of the local rows, null when unknown or for lists */
+	private Instant lastModified;
+	
+}
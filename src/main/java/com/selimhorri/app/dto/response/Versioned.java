@@ -0,0 +1,22 @@
+package com.selimhorri.app.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A representation together with the version of the very rows it was built from.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class Versioned<T> {
+
+	private T body;
+
+	/** Null when the read cannot tell, the representation is then answered without validators */
+	private ResourceVersion version;
+
+}
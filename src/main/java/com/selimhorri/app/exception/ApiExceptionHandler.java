@@ -2,7 +2,9 @@ package com.selimhorri.app.exception;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -80,4 +82,40 @@ public class ApiExceptionHandler {
 				badRequest);
 	}
 
+	@ExceptionHandler(value = {
+			ConcurrencyFailureException.class
+	})
+	public <T extends RuntimeException> ResponseEntity<ExceptionMsg> handleConcurrencyFailureException(final T e) {
+
+		log.info("**ApiExceptionHandler controller, handle concurrent write*\n");
+		final var conflict = HttpStatus.CONFLICT;
+
+		return new ResponseEntity<>(
+				ExceptionMsg.builder()
+						.msg("#### Shippings were written concurrently, try again! ####")
+						.httpStatus(conflict)
+						.timestamp(ZonedDateTime
+								.now(ZoneId.systemDefault()))
+						.build(),
+				conflict);
+	}
+
+	@ExceptionHandler(value = {
+			RejectedExecutionException.class
+	})
+	public <T extends RuntimeException> ResponseEntity<ExceptionMsg> handleRejectedRequestException(final T e) {
+
+		log.info("**ApiExceptionHandler controller, handle rejected request*\n");
+		final var serviceUnavailable = HttpStatus.SERVICE_UNAVAILABLE;
+
+		return new ResponseEntity<>(
+				ExceptionMsg.builder()
+						.msg("#### Too many concurrent requests, try again later! ####")
+						.httpStatus(serviceUnavailable)
+						.timestamp(ZonedDateTime
+								.now(ZoneId.systemDefault()))
+						.build(),
+				serviceUnavailable);
+	}
+
 }
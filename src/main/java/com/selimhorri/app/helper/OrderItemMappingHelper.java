@@ -1,6 +1,7 @@
 package com.selimhorri.app.helper;
 
 import com.selimhorri.app.domain.OrderItem;
+import com.selimhorri.app.domain.projection.OrderItemView;
 import com.selimhorri.app.dto.OrderDto;
 import com.selimhorri.app.dto.OrderItemDto;
 import com.selimhorri.app.dto.ProductDto;
@@ -15,6 +16,10 @@ public interface OrderItemMappingHelper {
 				.productDto(
 						ProductDto.builder()
 							.productId(orderItem.getProductId())
+							.productTitle(orderItem.getProductTitle())
+							.sku(orderItem.getProductSku())
+							.imageUrl(orderItem.getProductImageUrl())
+							.priceUnit(orderItem.getProductPriceUnit())
 							.build())
 				.orderDto(
 						OrderDto.builder()
@@ -23,6 +28,26 @@ public interface OrderItemMappingHelper {
 				.build();
 	}
 	
+	public static OrderItemDto map(final OrderItemView orderItemView) {
+		return OrderItemDto.builder()
+				.productId(orderItemView.getProductId())
+				.orderId(orderItemView.getOrderId())
+				.orderedQuantity(orderItemView.getOrderedQuantity())
+				.productDto(
+						ProductDto.builder()
+							.productId(orderItemView.getProductId())
+							.productTitle(orderItemView.getProductTitle())
+							.sku(orderItemView.getProductSku())
+							.imageUrl(orderItemView.getProductImageUrl())
+							.priceUnit(orderItemView.getProductPriceUnit())
+							.build())
+				.orderDto(
+						OrderDto.builder()
+							.orderId(orderItemView.getOrderId())
+							.build())
+				.build();
+	}
+	
 	public static OrderItem map(final OrderItemDto orderItemDto) {
 		return OrderItem.builder()
 				.productId(orderItemDto.getProductId())
@@ -40,6 +65,26 @@ public interface OrderItemMappingHelper {
 				.build();
 	}
 	
+	/**
+	 * New row carrying a snapshot of the product it ships, served by reads instead of asking PRODUCT-SERVICE.
+	 */
+	public static OrderItem mapForCreation(final OrderItemDto orderItemDto, final ProductDto productDto) {
+		final var orderItem = mapForCreation(orderItemDto);
+		orderItem.setProductTitle(productDto.getProductTitle());
+		orderItem.setProductSku(productDto.getSku());
+		orderItem.setProductImageUrl(productDto.getImageUrl());
+		orderItem.setProductPriceUnit(productDto.getPriceUnit());
+		return orderItem;
+	}
+	
+	/**
+	 * Whether the product of a mapped shipping is the snapshot taken at its creation,
+	 * rows created before snapshots existed only carry the product id.
+	 */
+	public static boolean hasProductSnapshot(final OrderItemDto orderItemDto) {
+		return orderItemDto.getProductDto() != null && orderItemDto.getProductDto().getProductTitle() != null;
+	}
+	
 	
 	
 }
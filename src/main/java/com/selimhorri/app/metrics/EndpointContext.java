@@ -0,0 +1,62 @@
+package com.selimhorri.app.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * Name of the shipping endpoint the current thread works for, used to tag metrics.
+ * Set around each request by the resource and carried over to the client lookup executor
+ * by {@link #propagate(Runnable)}.
+ */
+public final class EndpointContext {
+
+	public static final String NONE = "none";
+
+	private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+	private EndpointContext() {
+	}
+
+	public static String current() {
+		final var endpoint = CURRENT.get();
+		return endpoint == null ? NONE : endpoint;
+	}
+
+	/**
+	 * Runs the call on behalf of the endpoint, restoring the previous one afterwards.
+	 */
+	public static <T> T callAs(final String endpoint, final Supplier<T> call) {
+		final var previous = CURRENT.get();
+		CURRENT.set(endpoint);
+		try {
+			return call.get();
+		}
+		finally {
+			restore(previous);
+		}
+	}
+
+	/**
+	 * Binds the task to the endpoint of the submitting thread, usable as a {@code TaskDecorator}.
+	 */
+	public static Runnable propagate(final Runnable task) {
+		final var endpoint = CURRENT.get();
+		return () -> {
+			final var previous = CURRENT.get();
+			CURRENT.set(endpoint);
+			try {
+				task.run();
+			}
+			finally {
+				restore(previous);
+			}
+		};
+	}
+
+	private static void restore(final String previous) {
+		if (previous == null)
+			CURRENT.remove();
+		else
+			CURRENT.set(previous);
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.selimhorri.app.metrics;
+
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meters telling where shipping requests spend their time, all tagged with the
+ * {@link EndpointContext} endpoint:
+ * <ul>
+ * <li>{@code shipping.downstream.requests}, timer of downstream calls by dependency, operation and outcome</li>
+ * <li>{@code shipping.repository.queries}, timer of repository calls by query</li>
+ * <li>{@code shipping.enrichment.fanout}, distinct ids looked up per enrichment, by dependency</li>
+ * <li>{@code shipping.enrichment.dropped}, rows dropped by enrichment, by reason</li>
+ * </ul>
+ */
+@Component
+public class ShippingMetrics {
+
+	public static final String SUCCESS = "success";
+	public static final String NOT_FOUND = "not_found";
+	public static final String ERROR = "error";
+	/** The resource was found but its status excludes the shipping from reads */
+	public static final String FILTERED = "filtered";
+
+	public static final String PRODUCT_MISSING = "product_missing";
+	public static final String ORDER_MISSING = "order_missing";
+	public static final String ORDER_STATUS = "order_status";
+
+	private final MeterRegistry meterRegistry;
+
+	public ShippingMetrics(final MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	public Timer.Sample start() {
+		return Timer.start(this.meterRegistry);
+	}
+
+	public void recordDownstream(final Timer.Sample sample, final String dependency, final String operation,
+			final String outcome) {
+		sample.stop(Timer.builder("shipping.downstream.requests")
+				.description("Downstream calls, including retries and time spent waiting for a bulkhead permit")
+				.tag("dependency", dependency)
+				.tag("operation", operation)
+				.tag("outcome", outcome)
+				.tag("endpoint", EndpointContext.current())
+				.publishPercentileHistogram()
+				.register(this.meterRegistry));
+	}
+
+	public <T> T timeQuery(final String query, final Supplier<T> call) {
+		return Timer.builder("shipping.repository.queries")
+				.description("Repository calls, one per keyset page, lookup or write, including its transaction")
+				.tag("query", query)
+				.tag("endpoint", EndpointContext.current())
+				.publishPercentileHistogram()
+				.register(this.meterRegistry)
+				.record(call);
+	}
+
+	public void recordFanOut(final String dependency, final int distinctIds) {
+		DistributionSummary.builder("shipping.enrichment.fanout")
+				.description("Distinct ids looked up by one enrichment")
+				.baseUnit("ids")
+				.tag("dependency", dependency)
+				.tag("endpoint", EndpointContext.current())
+				.publishPercentileHistogram()
+				.register(this.meterRegistry)
+				.record(distinctIds);
+	}
+
+	public void countDropped(final String reason, final int rows) {
+		if (rows > 0)
+			this.meterRegistry.counter("shipping.enrichment.dropped",
+					"reason", reason, "endpoint", EndpointContext.current())
+					.increment(rows);
+	}
+
+}
@@ -0,0 +1,214 @@
+package com.selimhorri.app.outbox;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.selimhorri.app.client.OrderServiceClient;
+import com.selimhorri.app.config.shipping.ShippingProperties;
+import com.selimhorri.app.config.shipping.ShippingProperties.OutboxProperties;
+import com.selimhorri.app.domain.OrderStatusOutbox;
+import com.selimhorri.app.dto.OrderStatus;
+import com.selimhorri.app.metrics.EndpointContext;
+import com.selimhorri.app.repository.OrderStatusOutboxRepository;
+import com.selimhorri.app.service.OrderStatusProjectionService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers the order status changes queued in {@code order_status_outbox} to ORDER-SERVICE.
+ * Due entries are leased in batches through a claim token, so several instances can poll the
+ * same table, and delivered concurrently on the client lookup executor. Failed deliveries are
+ * retried with exponential backoff. Every claim counts as an attempt, and any attempt but the
+ * first checks whether the order already moved on, since a previous attempt may have been applied
+ * without its answer arriving, or may still be running on a dispatcher whose lease ran out. The
+ * status of delivered orders is then refreshed in the local order status projection.
+ */
+@Component
+@Slf4j
+public class OrderStatusOutboxDispatcher {
+
+	private enum Outcome { DELIVERED, ALREADY_APPLIED, DROPPED, RETRY }
+
+	private final OrderStatusOutboxRepository orderStatusOutboxRepository;
+	private final OrderServiceClient orderServiceClient;
+	private final OrderStatusProjectionService orderStatusProjectionService;
+	private final OutboxProperties outboxProperties;
+	private final ThreadPoolTaskScheduler shippingTaskScheduler;
+	private final MeterRegistry meterRegistry;
+	private final Timer dispatchLag;
+	private final AtomicLong oldestPendingMillis = new AtomicLong();
+
+	public OrderStatusOutboxDispatcher(
+			final OrderStatusOutboxRepository orderStatusOutboxRepository,
+			final OrderServiceClient orderServiceClient,
+			final OrderStatusProjectionService orderStatusProjectionService,
+			final ShippingProperties shippingProperties,
+			@Qualifier("shippingTaskScheduler") final ThreadPoolTaskScheduler shippingTaskScheduler,
+			final MeterRegistry meterRegistry) {
+		this.orderStatusOutboxRepository = orderStatusOutboxRepository;
+		this.orderServiceClient = orderServiceClient;
+		this.orderStatusProjectionService = orderStatusProjectionService;
+		this.outboxProperties = shippingProperties.getOutbox();
+		this.shippingTaskScheduler = shippingTaskScheduler;
+		this.meterRegistry = meterRegistry;
+		this.dispatchLag = Timer.builder("shipping.outbox.dispatch.lag")
+				.description("Time from queuing an order status change to ORDER-SERVICE applying it")
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+		TimeGauge.builder("shipping.outbox.oldest", this.oldestPendingMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+				.description("Age of the oldest undelivered order status change, as of the last poll")
+				.register(meterRegistry);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!this.outboxProperties.isEnabled()) {
+			log.info("*** Order status outbox dispatcher disabled *");
+			return;
+		}
+		this.shippingTaskScheduler.scheduleWithFixedDelay(this::dispatch, this.outboxProperties.getPollInterval());
+	}
+
+	/**
+	 * Delivers due entries batch after batch until fewer than a full batch is due.
+	 */
+	public void dispatch() {
+		try {
+			EndpointContext.callAs("outbox", () -> {
+				int claimed;
+				do {
+					claimed = this.dispatchBatch();
+				}
+				while (claimed == this.outboxProperties.getBatchSize());
+				return claimed;
+			});
+			this.oldestPendingMillis.set(this.orderStatusOutboxRepository.findFirstByOrderByCreatedAtAsc()
+					.map(entry -> Math.max(0, Duration.between(entry.getCreatedAt(), Instant.now()).toMillis()))
+					.orElse(0L));
+		}
+		catch (RuntimeException e) {
+			log.error("Order status outbox dispatch failed: {}", e.getMessage(), e);
+		}
+	}
+
+	private int dispatchBatch() {
+		final var now = Instant.now();
+		final var dueOrderIds = this.orderStatusOutboxRepository.findDueOrderIds(
+				now, PageRequest.of(0, this.outboxProperties.getBatchSize()));
+		if (dueOrderIds.isEmpty())
+			return 0;
+
+		final var claimToken = UUID.randomUUID().toString();
+		this.orderStatusOutboxRepository.claim(dueOrderIds, claimToken, now,
+				now.plus(this.outboxProperties.getLeaseTimeout()));
+		final var entries = this.orderStatusOutboxRepository.findByClaimToken(claimToken);
+
+		final Map<Integer, Throwable> failures = new ConcurrentHashMap<>();
+		final List<CompletableFuture<Outcome>> deliveries = entries.stream()
+				.map(entry -> this.deliver(entry, failures))
+				.collect(Collectors.toList());
+		CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new)).join();
+
+		final List<Integer> settled = new ArrayList<>();
+		final List<Integer> applied = new ArrayList<>();
+		for (int i = 0; i < entries.size(); i++) {
+			final var entry = entries.get(i);
+			final var outcome = deliveries.get(i).join();
+			this.meterRegistry.counter("shipping.outbox.deliveries", "outcome", outcome.name().toLowerCase())
+					.increment();
+			if (outcome == Outcome.RETRY) {
+				this.reschedule(entry, failures.get(entry.getOrderId()));
+				continue;
+			}
+			settled.add(entry.getOrderId());
+			if (outcome != Outcome.DROPPED) {
+				applied.add(entry.getOrderId());
+				this.dispatchLag.record(Duration.between(entry.getCreatedAt(), Instant.now()));
+			}
+		}
+		if (!settled.isEmpty())
+			this.orderStatusOutboxRepository.deleteClaimed(settled, claimToken);
+		this.refreshProjection(applied);
+
+		log.info("*** Order status outbox; {} claimed, {} settled *", entries.size(), settled.size());
+		return entries.size();
+	}
+
+	/**
+	 * Their shippings become visible once the projection knows them as ORDERED, a failure here
+	 * is left to the next notification or resync.
+	 */
+	private void refreshProjection(final List<Integer> orderIds) {
+		try {
+			this.orderStatusProjectionService.refresh(orderIds);
+		}
+		catch (RuntimeException e) {
+			log.warn("Could not refresh the status of {} delivered orders: {}", orderIds.size(), e.getMessage());
+		}
+	}
+
+	private CompletableFuture<Outcome> deliver(final OrderStatusOutbox entry, final Map<Integer, Throwable> failures) {
+		final var orderId = entry.getOrderId();
+		final CompletableFuture<Boolean> alreadyApplied;
+		if (entry.getAttempts() <= 1)
+			alreadyApplied = CompletableFuture.completedFuture(false);
+		else {
+			this.orderServiceClient.evict(orderId);
+			alreadyApplied = this.orderServiceClient.findByIdFreshAsync(orderId)
+					.thenApply(order -> order
+							.map(o -> !OrderStatus.CREATED.name().equals(o.getOrderStatus()))
+							.orElse(false));
+		}
+
+		return alreadyApplied
+				.thenCompose(applied -> applied ?
+						CompletableFuture.completedFuture(Outcome.ALREADY_APPLIED)
+						: this.orderServiceClient.updateStatusAsync(orderId).thenApply(v -> Outcome.DELIVERED))
+				.exceptionally(e -> {
+					final var cause = e.getCause() != null ? e.getCause() : e;
+					if (cause instanceof HttpClientErrorException) {
+						// ORDER-SERVICE refused the change, retrying cannot make it succeed
+						log.error("Dropping status change of order {}: {}", orderId, cause.getMessage());
+						return Outcome.DROPPED;
+					}
+					failures.put(orderId, cause);
+					return Outcome.RETRY;
+				});
+	}
+
+	private void reschedule(final OrderStatusOutbox entry, final Throwable cause) {
+		final int retries = Math.max(entry.getAttempts() - 1, 0);
+		final long backoffMillis = Math.min(this.outboxProperties.getMaxBackoff().toMillis(),
+				this.outboxProperties.getInitialBackoff().toMillis() << Math.min(retries, 20));
+		// Up to 20% jitter keeps failed batches from retrying in lockstep
+		final long jitterMillis = ThreadLocalRandom.current().nextLong(backoffMillis / 5 + 1);
+		final var message = String.valueOf(cause.getMessage());
+		log.warn("Status change of order {} failed on attempt {}, retrying in {} ms: {}",
+				entry.getOrderId(), entry.getAttempts(), backoffMillis + jitterMillis, message);
+		this.orderStatusOutboxRepository.reschedule(entry.getOrderId(), entry.getClaimToken(),
+				Instant.now().plusMillis(backoffMillis + jitterMillis),
+				message.length() > 255 ? message.substring(0, 255) : message);
+	}
+
+}
@@ -1,14 +1,106 @@
 package com.selimhorri.app.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.selimhorri.app.domain.OrderItem;
+import com.selimhorri.app.domain.projection.DailyStatsView;
+import com.selimhorri.app.domain.projection.OrderItemStatusView;
+import com.selimhorri.app.domain.projection.OrderItemView;
+import com.selimhorri.app.dto.ProductShippingStatsDto;
+
+public interface OrderItemRepository extends JpaRepository<OrderItem, Integer>, OrderItemRepositoryCustom {
+
+    /**
+     * Columns of {@link OrderItemView}, selected from the {@code OrderItem o} alias.
+     */
+    String SELECT_VIEW = "SELECT o.orderId AS orderId, o.productId AS productId, o.orderedQuantity AS orderedQuantity, "
+            + "o.isActive AS active, o.version AS version, o.createdAt AS createdAt, o.updatedAt AS updatedAt, "
+            + "o.productTitle AS productTitle, o.productSku AS productSku, "
+            + "o.productImageUrl AS productImageUrl, o.productPriceUnit AS productPriceUnit ";
+
+    /*
+     * Visible shippings are active and belong to an order the local order_status projection
+     * knows as ORDERED, see OrderStatus.ORDERED, or does not know yet. The status of those is
+     * left to the caller to check with ORDER-SERVICE.
+     */
+
+    /**
+     * Visible rows of the {@code OrderItem o} alias, along with their projected status as {@code s}.
+     */
+    String FROM_VISIBLE = "FROM OrderItem o LEFT JOIN OrderStatusProjection s ON s.orderId = o.orderId "
+            + "WHERE (s.orderStatus = 'ORDERED' OR s.orderId IS NULL) ";
+
+    /**
+     * Keyset page of visible rows strictly after the given order id, as read-only views in order id order.
+     */
+    @Query(SELECT_VIEW + FROM_VISIBLE + "AND o.isActive = true AND o.orderId > :after ORDER BY o.orderId")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    List<OrderItemView> findOrderedViewsAfter(@Param("after") Integer after, Pageable pageable);
+
+    @Query(SELECT_VIEW + ", s.orderStatus AS orderStatus "
+            + FROM_VISIBLE + "AND o.isActive = true AND o.orderId = :orderId")
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    Optional<OrderItemStatusView> findOrderedViewByOrderId(@Param("orderId") Integer orderId);
+
+    @Query(SELECT_VIEW + "FROM OrderItem o WHERE o.orderId = :orderId AND o.isActive = true")
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    Optional<OrderItemView> findActiveViewByOrderId(@Param("orderId") Integer orderId);
+
+    /**
+     * Soft deletes the row if it is still active, bumping its version like an entity update would.
+     * @return 0 when there is no active row for the order
+     */
+    @Modifying
+    @Query("UPDATE OrderItem o SET o.isActive = false, o.version = o.version + 1, o.updatedAt = :now "
+            + "WHERE o.orderId = :orderId AND o.isActive = true")
+    int deactivate(@Param("orderId") Integer orderId, @Param("now") Instant now);
+
+    /**
+     * Rows of the given orders, active or not, each with the status known locally for its order.
+     */
+    @Query(SELECT_VIEW + ", s.orderStatus AS orderStatus "
+            + "FROM OrderItem o LEFT JOIN OrderStatusProjection s ON s.orderId = o.orderId "
+            + "WHERE o.orderId IN :orderIds")
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<OrderItemStatusView> findStatusViewsByOrderIdIn(@Param("orderIds") Collection<Integer> orderIds);
+
+    /**
+     * Keyset page of the order ids of active rows, whatever their order status.
+     */
+    @Query("SELECT o.orderId FROM OrderItem o WHERE o.isActive = true AND o.orderId > :after ORDER BY o.orderId")
+    List<Integer> findActiveOrderIdsAfter(@Param("after") Integer after, Pageable pageable);
+
+    /*
+     * Aggregates over active rows whatever their order status, matching shipping_daily_stats
+     */
+
+    @Query("SELECT new com.selimhorri.app.dto.ProductShippingStatsDto("
+            + "o.productId, COUNT(o), COALESCE(SUM(o.orderedQuantity), 0L)) "
+            + "FROM OrderItem o WHERE o.isActive = true GROUP BY o.productId ORDER BY o.productId")
+    List<ProductShippingStatsDto> sumByProduct();
 
-public interface OrderItemRepository extends JpaRepository<OrderItem, Integer> {
-    List<OrderItem> findByIsActiveTrue();
-    Optional<OrderItem> findByOrderIdAndIsActiveTrue(Integer orderId); // Cambiado de "Id" a "OrderId"
+    @Query("SELECT YEAR(o.createdAt) AS year, MONTH(o.createdAt) AS month, DAY(o.createdAt) AS day, "
+            + "COUNT(o) AS shippings, COALESCE(SUM(o.orderedQuantity), 0L) AS orderedQuantity "
+            + "FROM OrderItem o WHERE o.isActive = true AND o.createdAt >= :from AND o.createdAt < :to "
+            + "GROUP BY YEAR(o.createdAt), MONTH(o.createdAt), DAY(o.createdAt)")
+    List<DailyStatsView> sumByDay(@Param("from") Instant from, @Param("to") Instant to);
 
 }
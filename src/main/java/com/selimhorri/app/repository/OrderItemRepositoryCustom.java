@@ -0,0 +1,27 @@
+package com.selimhorri.app.repository;
+
+import java.util.List;
+
+import com.selimhorri.app.domain.OrderItem;
+import com.selimhorri.app.domain.projection.OrderItemStatusView;
+import com.selimhorri.app.dto.OrderItemQuery;
+
+public interface OrderItemRepositoryCustom {
+
+    /**
+     * Keyset page of visible rows after {@code query.after}, as read-only views in order id order,
+     * each with the status the projection holds for its order. Only the filters set on the query
+     * are part of the statement, so each combination can use the index that fits it.
+     */
+    List<OrderItemStatusView> findViews(final OrderItemQuery query, final int maxResults);
+
+    /**
+     * Inserts each row unless its order already has a shipping, as one JDBC batch of single row
+     * {@code INSERT ... SELECT ... WHERE NOT EXISTS} statements. The check is part of each insert,
+     * so it sees rows committed up to that statement. A concurrent insert of the same order that
+     * commits first still fails the batch on the primary key. Runs in the caller's transaction.
+     * @return the update count of each row, in order, 0 when its order already has a shipping
+     */
+    int[] insertAllIfAbsent(final List<OrderItem> orderItems);
+
+}
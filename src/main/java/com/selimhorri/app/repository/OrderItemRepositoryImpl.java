@@ -0,0 +1,108 @@
+package com.selimhorri.app.repository;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+
+import org.hibernate.Session;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import com.selimhorri.app.domain.OrderItem;
+import com.selimhorri.app.domain.projection.OrderItemStatusView;
+import com.selimhorri.app.dto.OrderItemQuery;
+
+public class OrderItemRepositoryImpl implements OrderItemRepositoryCustom {
+
+    private static final ProjectionFactory PROJECTION_FACTORY = new SpelAwareProxyProjectionFactory();
+
+    private static final String INSERT_IF_ABSENT = "INSERT INTO order_items (order_id, product_id, "
+            + "ordered_quantity, is_active, version, created_at, updated_at, product_title, product_sku, "
+            + "product_image_url, product_price_unit) "
+            + "SELECT ?, ?, ?, TRUE, 0, ?, ?, ?, ?, ?, ? FROM DUAL "
+            + "WHERE NOT EXISTS (SELECT 1 FROM order_items WHERE order_id = ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderItemStatusView> findViews(final OrderItemQuery query, final int maxResults) {
+        final var jpql = new StringBuilder(OrderItemRepository.SELECT_VIEW)
+                .append(", s.orderStatus AS orderStatus ")
+                .append(OrderItemRepository.FROM_VISIBLE);
+        final Map<String, Object> parameters = new HashMap<>();
+        if (!query.isIncludeInactive())
+            jpql.append(" AND o.isActive = true");
+        if (query.getAfter() != null)
+            this.where(jpql, parameters, " AND o.orderId > :after", "after", query.getAfter());
+        if (query.getProductId() != null)
+            this.where(jpql, parameters, " AND o.productId = :productId", "productId", query.getProductId());
+        if (query.getCreatedAfter() != null)
+            this.where(jpql, parameters, " AND o.createdAt >= :createdAfter", "createdAfter", query.getCreatedAfter());
+        if (query.getCreatedBefore() != null)
+            this.where(jpql, parameters, " AND o.createdAt < :createdBefore", "createdBefore", query.getCreatedBefore());
+        if (query.getUpdatedSince() != null)
+            // Rows never updated have no updated_at, spelled out rather than COALESCE to keep both indexes usable
+            this.where(jpql, parameters, " AND (o.updatedAt >= :updatedSince"
+                    + " OR (o.updatedAt IS NULL AND o.createdAt >= :updatedSince))", "updatedSince", query.getUpdatedSince());
+        jpql.append(" ORDER BY o.orderId");
+
+        final var typedQuery = this.entityManager.createQuery(jpql.toString(), Tuple.class)
+                .setMaxResults(maxResults)
+                .setHint(HINT_FETCH_SIZE, 500)
+                .setHint(HINT_READONLY, true);
+        parameters.forEach(typedQuery::setParameter);
+        return typedQuery.getResultList().stream()
+                .map(OrderItemRepositoryImpl::toView)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int[] insertAllIfAbsent(final List<OrderItem> orderItems) {
+        return this.entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (var statement = connection.prepareStatement(INSERT_IF_ABSENT)) {
+                for (final var orderItem : orderItems) {
+                    final var createdAt = Timestamp.from(orderItem.getCreatedAt());
+                    statement.setInt(1, orderItem.getOrderId());
+                    statement.setInt(2, orderItem.getProductId());
+                    statement.setInt(3, orderItem.getOrderedQuantity());
+                    statement.setTimestamp(4, createdAt);
+                    statement.setTimestamp(5, createdAt);
+                    statement.setObject(6, orderItem.getProductTitle(), Types.VARCHAR);
+                    statement.setObject(7, orderItem.getProductSku(), Types.VARCHAR);
+                    statement.setObject(8, orderItem.getProductImageUrl(), Types.VARCHAR);
+                    statement.setObject(9, orderItem.getProductPriceUnit(), Types.DOUBLE);
+                    statement.setInt(10, orderItem.getOrderId());
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+    }
+
+    private void where(final StringBuilder jpql, final Map<String, Object> parameters,
+            final String predicate, final String name, final Object value) {
+        jpql.append(predicate);
+        parameters.put(name, value);
+    }
+
+    /**
+     * Same view as the declared queries return, backed by the aliased tuple values.
+     */
+    private static OrderItemStatusView toView(final Tuple tuple) {
+        final Map<String, Object> values = new HashMap<>();
+        tuple.getElements().forEach(element -> values.put(element.getAlias(), tuple.get(element)));
+        return PROJECTION_FACTORY.createProjection(OrderItemStatusView.class, values);
+    }
+
+}
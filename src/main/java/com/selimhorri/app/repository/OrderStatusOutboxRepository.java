@@ -0,0 +1,57 @@
+package com.selimhorri.app.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.selimhorri.app.domain.OrderStatusOutbox;
+
+public interface OrderStatusOutboxRepository extends JpaRepository<OrderStatusOutbox, Integer> {
+
+    @Query("SELECT o.orderId FROM OrderStatusOutbox o WHERE o.nextAttemptAt <= :now ORDER BY o.nextAttemptAt")
+    List<Integer> findDueOrderIds(@Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Leases the entries still due to the claim token until {@code leaseUntil}, entries claimed
+     * meanwhile by another dispatcher are left alone. Each claim counts as an attempt, so an entry
+     * claimed again after its lease ran out is known to have possibly been delivered already.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderStatusOutbox o SET o.claimToken = :claimToken, o.nextAttemptAt = :leaseUntil, "
+            + "o.attempts = o.attempts + 1 WHERE o.orderId IN :orderIds AND o.nextAttemptAt <= :now")
+    int claim(@Param("orderIds") Collection<Integer> orderIds, @Param("claimToken") String claimToken,
+            @Param("now") Instant now, @Param("leaseUntil") Instant leaseUntil);
+
+    List<OrderStatusOutbox> findByClaimToken(String claimToken);
+
+    /**
+     * Removes settled entries, unless their lease expired and they were claimed again.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OrderStatusOutbox o WHERE o.orderId IN :orderIds AND o.claimToken = :claimToken")
+    int deleteClaimed(@Param("orderIds") Collection<Integer> orderIds, @Param("claimToken") String claimToken);
+
+    /**
+     * Releases a failed entry until {@code nextAttemptAt}, its attempt was counted by the claim.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderStatusOutbox o SET o.nextAttemptAt = :nextAttemptAt, "
+            + "o.lastError = :lastError, o.claimToken = NULL "
+            + "WHERE o.orderId = :orderId AND o.claimToken = :claimToken")
+    int reschedule(@Param("orderId") Integer orderId, @Param("claimToken") String claimToken,
+            @Param("nextAttemptAt") Instant nextAttemptAt, @Param("lastError") String lastError);
+
+    Optional<OrderStatusOutbox> findFirstByOrderByCreatedAtAsc();
+
+}
@@ -0,0 +1,26 @@
+package com.selimhorri.app.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.selimhorri.app.domain.OrderStatusProjection;
+
+public interface OrderStatusProjectionRepository extends JpaRepository<OrderStatusProjection, Integer> {
+
+    /**
+     * Records the status unless a change that took effect later is already known.
+     * @return 0 when there is no row for the order yet or it holds a later change
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OrderStatusProjection s SET s.orderStatus = :orderStatus, s.updatedAt = :changedAt "
+            + "WHERE s.orderId = :orderId AND s.updatedAt <= :changedAt")
+    int updateUnlessNewer(@Param("orderId") Integer orderId, @Param("orderStatus") String orderStatus,
+            @Param("changedAt") Instant changedAt);
+
+}
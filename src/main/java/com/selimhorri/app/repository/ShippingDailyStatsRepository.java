@@ -0,0 +1,40 @@
+package com.selimhorri.app.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.selimhorri.app.domain.ShippingDailyStats;
+import com.selimhorri.app.dto.DailyShippingStatsDto;
+import com.selimhorri.app.dto.ProductShippingStatsDto;
+
+public interface ShippingDailyStatsRepository extends JpaRepository<ShippingDailyStats, ShippingDailyStats.Key> {
+
+    /**
+     * Adds to the counters of an existing row in place, so concurrent writers do not lose updates.
+     * Runs in the caller's transaction.
+     * @return 0 when there is no row for this product and day
+     */
+    @Modifying
+    @Query("UPDATE ShippingDailyStats s SET s.shippings = s.shippings + :shippings, "
+            + "s.orderedQuantity = s.orderedQuantity + :orderedQuantity "
+            + "WHERE s.productId = :productId AND s.statsDay = :statsDay")
+    int add(@Param("productId") Integer productId, @Param("statsDay") LocalDate statsDay,
+            @Param("shippings") long shippings, @Param("orderedQuantity") long orderedQuantity);
+
+    @Query("SELECT new com.selimhorri.app.dto.ProductShippingStatsDto("
+            + "s.productId, SUM(s.shippings), SUM(s.orderedQuantity)) "
+            + "FROM ShippingDailyStats s GROUP BY s.productId HAVING SUM(s.shippings) > 0 ORDER BY s.productId")
+    List<ProductShippingStatsDto> sumByProduct();
+
+    @Query("SELECT new com.selimhorri.app.dto.DailyShippingStatsDto("
+            + "s.statsDay, SUM(s.shippings), SUM(s.orderedQuantity)) "
+            + "FROM ShippingDailyStats s WHERE s.statsDay >= :from AND s.statsDay <= :to "
+            + "GROUP BY s.statsDay HAVING SUM(s.shippings) > 0 ORDER BY s.statsDay")
+    List<DailyShippingStatsDto> sumByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+}
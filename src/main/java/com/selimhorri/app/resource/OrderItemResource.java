@@ -1,60 +1,383 @@
 package com.selimhorri.app.resource;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.selimhorri.app.config.shipping.ShippingProperties;
+import com.selimhorri.app.dto.DailyShippingStatsDto;
+import com.selimhorri.app.dto.OrderItemBatchResultDto;
 import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.dto.OrderItemExpand;
+import com.selimhorri.app.dto.OrderItemLookupResultDto;
+import com.selimhorri.app.dto.OrderItemQuery;
+import com.selimhorri.app.dto.ProductShippingStatsDto;
+import com.selimhorri.app.dto.response.ResourceVersion;
+import com.selimhorri.app.dto.response.Versioned;
 import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+import com.selimhorri.app.dto.response.collection.DtoPageResponse;
+import com.selimhorri.app.metrics.EndpointContext;
 import com.selimhorri.app.service.OrderItemService;
+import com.selimhorri.app.service.ShippingStatsService;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
 @RequestMapping("/api/shippings")
 @Slf4j
-@RequiredArgsConstructor
 public class OrderItemResource {
 	
+	/**
+	 * Properties of a shipping that {@code fields} may select, in their JSON names.
+	 */
+	private static final Set<String> SELECTABLE_FIELDS = Set.of(
+			"orderId", "productId", "orderedQuantity", "active", "product", "order");
+	
+	private static final Map<String, OrderItemExpand> EXPANDABLE_FIELDS = Map.of(
+			"product", OrderItemExpand.PRODUCT,
+			"order", OrderItemExpand.ORDER);
+	
 	private final OrderItemService orderItemService;
+	private final ObjectMapper objectMapper;
+	private final ThreadPoolTaskExecutor shippingRequestExecutor;
+	private final ShippingProperties shippingProperties;
+	private final ShippingStatsService shippingStatsService;
+	
+	public OrderItemResource(
+			final OrderItemService orderItemService,
+			final ObjectMapper objectMapper,
+			@Qualifier("shippingRequestExecutor") final ThreadPoolTaskExecutor shippingRequestExecutor,
+			final ShippingProperties shippingProperties,
+			final ShippingStatsService shippingStatsService) {
+		this.orderItemService = orderItemService;
+		this.objectMapper = objectMapper;
+		this.shippingRequestExecutor = shippingRequestExecutor;
+		this.shippingProperties = shippingProperties;
+		this.shippingStatsService = shippingStatsService;
+	}
 	
+	/**
+	 * Product and order are joined on unless {@code expand} names fewer of them, {@code expand=}
+	 * answers the local columns only, without any downstream call. {@code fields} restricts the
+	 * properties of each shipping and, without {@code expand}, only expands what it names.
+	 * The filters are applied by the database, only the matching page is enriched.
+	 */
 	@GetMapping
-	public ResponseEntity<DtoCollectionResponse<OrderItemDto>> findAll() {
-		log.info("*** OrderItemDto List, controller; fetch all orderItems *");
-		return ResponseEntity.ok(new DtoCollectionResponse<>(this.orderItemService.findAll()));
+	public DeferredResult<ResponseEntity<DtoPageResponse<?>>> findAll(
+			@RequestParam(name = "after", required = false) final Integer after,
+			@RequestParam(name = "limit", required = false) final Integer limit,
+			@RequestParam(name = "live", defaultValue = "false") final boolean live,
+			@RequestParam(name = "expand", required = false) final String expand,
+			@RequestParam(name = "fields", required = false) final String fields,
+			@RequestParam(name = "productId", required = false) final Integer productId,
+			@RequestParam(name = "createdAfter", required = false) final Instant createdAfter,
+			@RequestParam(name = "createdBefore", required = false) final Instant createdBefore,
+			@RequestParam(name = "updatedSince", required = false) final Instant updatedSince,
+			@RequestParam(name = "includeInactive", defaultValue = "false") final boolean includeInactive,
+			@RequestHeader final HttpHeaders headers) {
+		log.info("*** OrderItemDto Page, controller; fetch orderItems page *");
+		final var fieldSet = parseFields(fields);
+		final var query = OrderItemQuery.builder()
+				.after(after)
+				.limit(limit)
+				.productId(productId)
+				.createdAfter(createdAfter)
+				.createdBefore(createdBefore)
+				.updatedSince(updatedSince)
+				.includeInactive(includeInactive)
+				.expand(parseExpand(expand, fieldSet))
+				.liveProducts(live)
+				.build();
+		return this.asyncResponse("list", () -> conditional(headers,
+				() -> this.orderItemService.findPageVersion(query).map(version -> withFields(version, fieldSet)),
+				() -> this.sparse(this.orderItemService.findVersionedPage(query), fieldSet)));
+	}
+	
+	/**
+	 * Looks up the shippings of a list of orders at once, each id answering whether it was found.
+	 */
+	@GetMapping(params = "orderIds")
+	public DeferredResult<ResponseEntity<DtoCollectionResponse<OrderItemLookupResultDto>>> findAllByIds(
+			@RequestParam(name = "orderIds") final List<Integer> orderIds,
+			@RequestParam(name = "live", defaultValue = "false") final boolean live) {
+		log.info("*** OrderItemLookupResultDto List, resource; fetch orderItems by ids *");
+		return this.async("multiget", () -> new DtoCollectionResponse<>(
+				this.orderItemService.findAllByIds(orderIds, live)));
+	}
+	
+	/**
+	 * Same as {@link #findAllByIds(List, boolean)}, for lists too long for a query string.
+	 */
+	@PostMapping("/lookup")
+	public DeferredResult<ResponseEntity<DtoCollectionResponse<OrderItemLookupResultDto>>> lookup(
+			@RequestBody
+			@NotNull(message = "Input must not be NULL")
+			final List<Integer> orderIds,
+			@RequestParam(name = "live", defaultValue = "false") final boolean live) {
+		log.info("*** OrderItemLookupResultDto List, resource; look up orderItems by ids *");
+		return this.async("multiget", () -> new DtoCollectionResponse<>(
+				this.orderItemService.findAllByIds(orderIds, live)));
+	}
+	
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> export() {
+		log.info("*** OrderItemDto Stream, controller; export all orderItems *");
+		final var writer = this.objectMapper.writer();
+		final StreamingResponseBody body = outputStream -> EndpointContext.callAs("export", () -> {
+			this.orderItemService.exportAll(chunk -> {
+				try {
+					for (final var orderItemDto : chunk) {
+						outputStream.write(writer.writeValueAsBytes(orderItemDto));
+						outputStream.write('\n');
+					}
+					outputStream.flush();
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			return null;
+		});
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(body);
+	}
+	
+	@GetMapping("/stats/by-product")
+	public DeferredResult<ResponseEntity<DtoCollectionResponse<ProductShippingStatsDto>>> statsByProduct() {
+		log.info("*** ProductShippingStatsDto List, resource; fetch shipping stats by product *");
+		return this.asyncResponse("stats", () -> this.cacheable(
+				new DtoCollectionResponse<>(this.shippingStatsService.findByProduct())));
+	}
+	
+	@GetMapping("/stats/by-day")
+	public DeferredResult<ResponseEntity<DtoCollectionResponse<DailyShippingStatsDto>>> statsByDay(
+			@RequestParam(name = "from", required = false) @DateTimeFormat(iso = ISO.DATE) final LocalDate from,
+			@RequestParam(name = "to", required = false) @DateTimeFormat(iso = ISO.DATE) final LocalDate to) {
+		log.info("*** DailyShippingStatsDto List, resource; fetch shipping stats by day *");
+		return this.asyncResponse("stats", () -> this.cacheable(
+				new DtoCollectionResponse<>(this.shippingStatsService.findByDay(from, to))));
+	}
+	
+	/**
+	 * Aggregates may be reused by clients for as long as they are kept in memory.
+	 */
+	private <T> ResponseEntity<T> cacheable(final T body) {
+		return ResponseEntity.ok()
+				.cacheControl(CacheControl.maxAge(this.shippingProperties.getStats().getCacheTtl()))
+				.body(body);
 	}
 	
 	@GetMapping("/{orderId}")
-	public ResponseEntity<OrderItemDto> findById(
-			@PathVariable("orderId") final String orderId) {
+	public DeferredResult<ResponseEntity<OrderItemDto>> findById(
+			@PathVariable("orderId") final String orderId,
+			@RequestParam(name = "live", defaultValue = "false") final boolean live,
+			@RequestHeader final HttpHeaders headers) {
 		log.info("*** OrderItemDto, resource; fetch orderItem by id *");
-		return ResponseEntity.ok(this.orderItemService.findById(Integer.parseInt(orderId)));
+		final int id = Integer.parseInt(orderId);
+		return this.asyncResponse("get", () -> conditional(headers,
+				() -> this.orderItemService.findVersion(id, live),
+				() -> this.orderItemService.findVersionedById(id, live)));
 	}
 	
 	@PostMapping
-	public ResponseEntity<OrderItemDto> save(
+	public DeferredResult<ResponseEntity<OrderItemDto>> save(
 			@RequestBody 
 			@NotNull(message = "Input must not be NULL") 
 			@Valid final OrderItemDto orderItemDto) {
 		log.info("*** OrderItemDto, resource; save orderItem *");
-		return ResponseEntity.ok(this.orderItemService.save(orderItemDto));
+		return this.async("create", () -> this.orderItemService.save(orderItemDto));
+	}
+	
+	@PostMapping("/batch")
+	public DeferredResult<ResponseEntity<DtoCollectionResponse<OrderItemBatchResultDto>>> saveAll(
+			@RequestBody 
+			@NotNull(message = "Input must not be NULL") 
+			final List<OrderItemDto> orderItemDtos) {
+		log.info("*** OrderItemBatchResultDto List, resource; save orderItems batch *");
+		return this.async("batch", () -> new DtoCollectionResponse<>(this.orderItemService.saveAll(orderItemDtos)));
 	}
 	
 	@DeleteMapping("/{orderId}")
-	public ResponseEntity<Boolean> deleteById(
+	public DeferredResult<ResponseEntity<Boolean>> deleteById(
 			@PathVariable("orderId") final String orderId) {
 		log.info("*** Boolean, resource; delete orderItem by id *");
-		this.orderItemService.deleteById(Integer.parseInt(orderId));
-		return ResponseEntity.ok(true);
+		final int id = Integer.parseInt(orderId);
+		return this.async("delete", () -> {
+			this.orderItemService.deleteById(id);
+			return true;
+		});
+	}
+	
+	private static Set<OrderItemExpand> parseExpand(final String expand, final Set<String> fields) {
+		if (expand == null)
+			return fields == null ? EnumSet.allOf(OrderItemExpand.class) : EXPANDABLE_FIELDS.entrySet().stream()
+					.filter(field -> fields.contains(field.getKey()))
+					.map(Map.Entry::getValue)
+					.collect(Collectors.toCollection(() -> EnumSet.noneOf(OrderItemExpand.class)));
+		
+		final var expansions = EnumSet.noneOf(OrderItemExpand.class);
+		for (final var name : expand.split(",")) {
+			if (name.isBlank())
+				continue;
+			final var expansion = EXPANDABLE_FIELDS.get(name.trim());
+			if (expansion == null)
+				throw new IllegalArgumentException("Cannot expand " + name.trim() + ", expected product or order");
+			expansions.add(expansion);
+		}
+		return expansions;
+	}
+	
+	private static Set<String> parseFields(final String fields) {
+		if (fields == null)
+			return null;
+		final Set<String> selected = new TreeSet<>();
+		for (final var name : fields.split(",")) {
+			if (name.isBlank())
+				continue;
+			if (!SELECTABLE_FIELDS.contains(name.trim()))
+				throw new IllegalArgumentException("Unknown field " + name.trim() + ", expected one of "
+						+ SELECTABLE_FIELDS);
+			selected.add(name.trim());
+		}
+		return selected;
+	}
+	
+	/**
+	 * Keeps only the selected properties of each shipping.
+	 */
+	private Versioned<DtoPageResponse<?>> sparse(final Versioned<DtoPageResponse<OrderItemDto>> page,
+			final Set<String> fields) {
+		if (fields == null)
+			return Versioned.<DtoPageResponse<?>>builder()
+					.body(page.getBody())
+					.version(page.getVersion())
+					.build();
+		return Versioned.<DtoPageResponse<?>>builder()
+				.body(DtoPageResponse.<ObjectNode>builder()
+						.collection(page.getBody().getCollection().stream()
+								.map(orderItemDto -> this.objectMapper.<ObjectNode>valueToTree(orderItemDto)
+										.retain(fields))
+								.collect(Collectors.toList()))
+						.nextCursor(page.getBody().getNextCursor())
+						.build())
+				.version(page.getVersion() == null ? null : withFields(page.getVersion(), fields))
+				.build();
+	}
+	
+	/**
+	 * Each field selection is its own representation, with its own entity tag.
+	 */
+	private static ResourceVersion withFields(final ResourceVersion version, final Set<String> fields) {
+		if (fields == null)
+			return version;
+		return ResourceVersion.builder()
+				.etag("\"" + DigestUtils.md5DigestAsHex((version.getEtag() + fields)
+						.getBytes(StandardCharsets.UTF_8)) + "\"")
+				.lastModified(version.getLastModified())
+				.build();
+	}
+	
+	/**
+	 * Runs the call on the shipping request executor, releasing the container thread meanwhile.
+	 * Failures are rendered by {@code ApiExceptionHandler}, a timeout answers with 503.
+	 * Metrics recorded by the call are tagged with the endpoint name.
+	 */
+	private <T> DeferredResult<ResponseEntity<T>> async(final String endpoint, final Supplier<T> call) {
+		return this.asyncResponse(endpoint, () -> ResponseEntity.ok(call.get()));
+	}
+	
+	private <T> DeferredResult<ResponseEntity<T>> asyncResponse(final String endpoint,
+			final Supplier<ResponseEntity<T>> call) {
+		final var result = new DeferredResult<ResponseEntity<T>>(
+				this.shippingProperties.getAsync().getRequestTimeout().toMillis());
+		CompletableFuture.supplyAsync(() -> EndpointContext.callAs(endpoint, call), this.shippingRequestExecutor)
+				.whenComplete((value, e) -> {
+					if (e == null)
+						result.setResult(value);
+					else
+						result.setErrorResult(e instanceof CompletionException && e.getCause() != null ?
+								e.getCause() : e);
+				});
+		return result;
+	}
+	
+	/**
+	 * Answers 304 without reading the resource when its current version satisfies the
+	 * {@code If-None-Match} or {@code If-Modified-Since} precondition. Otherwise reads it and
+	 * tags it with the version of the rows that read was built from.
+	 */
+	private static <T> ResponseEntity<T> conditional(final HttpHeaders headers,
+			final Supplier<Optional<ResourceVersion>> version, final Supplier<Versioned<T>> read) {
+		final var current = version.get();
+		if (current.isPresent() && isNotModified(headers, current.get()))
+			return withVersion(ResponseEntity.status(HttpStatus.NOT_MODIFIED), current.get()).build();
+		
+		final var versioned = read.get();
+		if (versioned.getVersion() == null)
+			return ResponseEntity.ok(versioned.getBody());
+		return withVersion(ResponseEntity.ok(), versioned.getVersion()).body(versioned.getBody());
+	}
+	
+	/**
+	 * {@code If-None-Match} takes precedence, {@code If-Modified-Since} is only looked at without it.
+	 */
+	private static boolean isNotModified(final HttpHeaders headers, final ResourceVersion version) {
+		final var ifNoneMatch = headers.getIfNoneMatch();
+		if (!ifNoneMatch.isEmpty())
+			return ifNoneMatch.stream()
+					.map(etag -> etag.startsWith("W/") ? etag.substring(2) : etag)
+					.anyMatch(etag -> "*".equals(etag) || etag.equals(version.getEtag()));
+		final long ifModifiedSince = headers.getIfModifiedSince();
+		return ifModifiedSince >= 0 && version.getLastModified() != null
+				&& version.getLastModified().getEpochSecond() <= ifModifiedSince / 1000;
+	}
+	
+	private static ResponseEntity.BodyBuilder withVersion(final ResponseEntity.BodyBuilder response,
+			final ResourceVersion version) {
+		response.eTag(version.getEtag());
+		if (version.getLastModified() != null)
+			response.lastModified(version.getLastModified());
+		return response;
 	}
 	
 }
@@ -0,0 +1,49 @@
+package com.selimhorri.app.resource;
+
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.selimhorri.app.dto.OrderStatusChangeDto;
+import com.selimhorri.app.metrics.EndpointContext;
+import com.selimhorri.app.service.OrderStatusProjectionService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Receives order status change notifications from ORDER-SERVICE for the local order status
+ * projection. Any other feed, such as a message listener, can hand its changes to
+ * {@link OrderStatusProjectionService#apply(List)} the same way.
+ */
+@RestController
+@RequestMapping("/api/order-statuses")
+@Slf4j
+@RequiredArgsConstructor
+public class OrderStatusResource {
+
+	private final OrderStatusProjectionService orderStatusProjectionService;
+
+	@PostMapping
+	public ResponseEntity<Integer> apply(
+			@RequestBody
+			@NotNull(message = "Input must not be NULL")
+			final List<OrderStatusChangeDto> changes) {
+		log.info("*** Integer, resource; apply order status changes *");
+		return ResponseEntity.ok(EndpointContext.callAs("order_status",
+				() -> this.orderStatusProjectionService.apply(changes)));
+	}
+
+	@PostMapping("/resync")
+	public ResponseEntity<Integer> resync() {
+		log.info("*** Integer, resource; resync order status projection *");
+		return ResponseEntity.ok(EndpointContext.callAs("resync", this.orderStatusProjectionService::resync));
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.selimhorri.app.service;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.dto.OrderItemExpand;
+
+public interface OrderItemEnrichmentService {
+	
+	/**
+	 * Products are served from the snapshot taken at creation where the row has one.
+	 */
+	default List<OrderItemDto> enrich(final List<OrderItemDto> orderItemDtos) {
+		return this.enrich(orderItemDtos, EnumSet.allOf(OrderItemExpand.class), false);
+	}
+	
+	/**
+	 * @param expand related resources joined on, the others are left out of the shippings
+	 * @param liveProducts whether products are read from PRODUCT-SERVICE even for rows with a snapshot
+	 */
+	List<OrderItemDto> enrich(final List<OrderItemDto> orderItemDtos, final Set<OrderItemExpand> expand,
+			final boolean liveProducts);
+	
+}
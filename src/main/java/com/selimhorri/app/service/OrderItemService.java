@@ -1,14 +1,29 @@
 package com.selimhorri.app.service;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.selimhorri.app.dto.OrderItemBatchResultDto;
 import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.dto.OrderItemLookupResultDto;
+import com.selimhorri.app.dto.OrderItemQuery;
+import com.selimhorri.app.dto.response.ResourceVersion;
+import com.selimhorri.app.dto.response.Versioned;
+import com.selimhorri.app.dto.response.collection.DtoPageResponse;
 
 public interface OrderItemService {
 	
-	List<OrderItemDto> findAll();
-	OrderItemDto findById(final int shippingId);
+	DtoPageResponse<OrderItemDto> findPage(final OrderItemQuery query);
+	Versioned<DtoPageResponse<OrderItemDto>> findVersionedPage(final OrderItemQuery query);
+	Optional<ResourceVersion> findPageVersion(final OrderItemQuery query);
+	void exportAll(final Consumer<List<OrderItemDto>> chunkConsumer);
+	OrderItemDto findById(final int shippingId, final boolean liveProducts);
+	Versioned<OrderItemDto> findVersionedById(final int shippingId, final boolean liveProducts);
+	List<OrderItemLookupResultDto> findAllByIds(final List<Integer> shippingIds, final boolean liveProducts);
+	Optional<ResourceVersion> findVersion(final int shippingId, final boolean liveProducts);
 	OrderItemDto save(final OrderItemDto orderItemDto);
+	List<OrderItemBatchResultDto> saveAll(final List<OrderItemDto> orderItemDtos);
 	void deleteById(final int shippingId);
 	
 }
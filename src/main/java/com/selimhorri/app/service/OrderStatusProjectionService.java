@@ -0,0 +1,35 @@
+package com.selimhorri.app.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.selimhorri.app.dto.OrderStatusChangeDto;
+
+/**
+ * Keeps the local {@code order_status} projection, which reads join to tell which shippings
+ * belong to an ORDERED order, in line with ORDER-SERVICE.
+ */
+public interface OrderStatusProjectionService {
+
+	/**
+	 * Records status change notifications, a change older than the one already recorded for
+	 * its order is ignored.
+	 * @return the number of changes recorded
+	 */
+	int apply(final List<OrderStatusChangeDto> changes);
+
+	/**
+	 * Reads the current status of these orders from ORDER-SERVICE and records it. Orders whose
+	 * status cannot be read right now are skipped, never recorded from a stale copy.
+	 * @return the number of orders recorded
+	 */
+	int refresh(final Collection<Integer> orderIds);
+
+	/**
+	 * Refreshes the status of every order with an active shipping, catching changes whose
+	 * notification was missed.
+	 * @return the number of orders recorded
+	 */
+	int resync();
+
+}
@@ -0,0 +1,39 @@
+package com.selimhorri.app.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import com.selimhorri.app.domain.OrderItem;
+import com.selimhorri.app.domain.projection.OrderItemView;
+import com.selimhorri.app.dto.DailyShippingStatsDto;
+import com.selimhorri.app.dto.ProductShippingStatsDto;
+
+public interface ShippingStatsService {
+	
+	List<ProductShippingStatsDto> findByProduct();
+	
+	/**
+	 * @param from first day, {@code defaultDays} before {@code to} when absent
+	 * @param to last day, inclusive, today when absent
+	 */
+	List<DailyShippingStatsDto> findByDay(final LocalDate from, final LocalDate to);
+	
+	/**
+	 * Creates the missing summary rows these new shippings will be counted in. Runs in its own
+	 * transaction, before the one saving the shippings, which then only updates existing rows.
+	 */
+	void prepareSummary(final Collection<OrderItem> orderItems);
+	
+	/**
+	 * Counts new shippings in the summary, within the caller's transaction. Rows of the same
+	 * product and day are added up and updated once.
+	 */
+	void addToSummary(final Collection<OrderItem> orderItems);
+	
+	/**
+	 * Stops counting a deactivated shipping in the summary, within the caller's transaction.
+	 */
+	void removeFromSummary(final OrderItemView orderItem);
+	
+}
@@ -0,0 +1,95 @@
+package com.selimhorri.app.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+
+import com.selimhorri.app.client.OrderServiceClient;
+import com.selimhorri.app.client.ProductServiceClient;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.dto.OrderItemExpand;
+import com.selimhorri.app.dto.OrderStatus;
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.helper.OrderItemMappingHelper;
+import com.selimhorri.app.metrics.ShippingMetrics;
+import com.selimhorri.app.service.OrderItemEnrichmentService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Joins product and order details onto shippings. Distinct ids are collected first and
+ * both downstream services are queried concurrently, each id being resolved only once.
+ * Shippings whose product or order cannot be resolved, or whose order is not ORDERED, are dropped.
+ * Products captured at creation are served from the row unless live products are asked for.
+ * Related resources not asked for are neither fetched nor checked, the order status is then
+ * left to the caller, which filters it by the local order status projection the rows were
+ * read through and looks up the orders that projection does not know yet.
+ * Fan-out and dropped rows are recorded through {@link ShippingMetrics}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OrderItemEnrichmentServiceImpl implements OrderItemEnrichmentService {
+	
+	private final ProductServiceClient productServiceClient;
+	private final OrderServiceClient orderServiceClient;
+	private final ShippingMetrics shippingMetrics;
+	
+	@Override
+	public List<OrderItemDto> enrich(final List<OrderItemDto> orderItemDtos, final Set<OrderItemExpand> expand,
+			final boolean liveProducts) {
+		log.info("*** OrderItemDto List, service; enrich {} orderItems with {} *", orderItemDtos.size(), expand);
+		final boolean expandProduct = expand.contains(OrderItemExpand.PRODUCT);
+		final boolean expandOrder = expand.contains(OrderItemExpand.ORDER);
+		
+		final var productIds = !expandProduct ? Set.<Integer>of() : orderItemDtos.stream()
+				.filter(o -> liveProducts || !OrderItemMappingHelper.hasProductSnapshot(o))
+				.map(OrderItemDto::getProductId)
+				.collect(Collectors.toSet());
+		final var orderIds = !expandOrder ? Set.<Integer>of() : orderItemDtos.stream()
+				.map(OrderItemDto::getOrderId)
+				.collect(Collectors.toSet());
+		if (expandProduct)
+			this.shippingMetrics.recordFanOut("product", productIds.size());
+		if (expandOrder)
+			this.shippingMetrics.recordFanOut("order", orderIds.size());
+		final var productsFuture = this.productServiceClient.findAllByIdsAsync(productIds);
+		final var ordersFuture = this.orderServiceClient.findAllByIdsAsync(orderIds);
+		
+		final Map<Integer, ProductDto> products = productsFuture.join();
+		final Map<Integer, OrderDto> orders = ordersFuture.join();
+		
+		int productMissing = 0;
+		int orderMissing = 0;
+		int orderStatus = 0;
+		final List<OrderItemDto> enriched = new ArrayList<>(orderItemDtos.size());
+		for (final var o : orderItemDtos) {
+			final var product = !expandProduct ? null
+					: liveProducts || !OrderItemMappingHelper.hasProductSnapshot(o) ?
+							products.get(o.getProductId()) : o.getProductDto();
+			final var order = expandOrder ? orders.get(o.getOrderId()) : null;
+			if (expandProduct && product == null)
+				productMissing++;
+			else if (expandOrder && order == null)
+				orderMissing++;
+			else if (expandOrder && !OrderStatus.ORDERED.name().equals(order.getOrderStatus()))
+				orderStatus++;
+			else {
+				o.setProductDto(product);
+				o.setOrderDto(order);
+				enriched.add(o);
+			}
+		}
+		this.shippingMetrics.countDropped(ShippingMetrics.PRODUCT_MISSING, productMissing);
+		this.shippingMetrics.countDropped(ShippingMetrics.ORDER_MISSING, orderMissing);
+		this.shippingMetrics.countDropped(ShippingMetrics.ORDER_STATUS, orderStatus);
+		return enriched;
+	}
+	
+}
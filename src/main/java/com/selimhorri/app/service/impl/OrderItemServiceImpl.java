@@ -1,116 +1,259 @@
 package com.selimhorri.app.service.impl;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
 
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
-import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.client.OrderServiceClient;
+import com.selimhorri.app.client.ProductServiceClient;
+import com.selimhorri.app.config.shipping.ShippingProperties;
 import com.selimhorri.app.domain.OrderItem;
+import com.selimhorri.app.domain.OrderStatusOutbox;
+import com.selimhorri.app.domain.projection.OrderItemStatusView;
+import com.selimhorri.app.domain.projection.OrderItemView;
 import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.OrderItemBatchResultDto;
 import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.dto.OrderItemExpand;
+import com.selimhorri.app.dto.OrderItemLookupResultDto;
+import com.selimhorri.app.dto.OrderItemQuery;
 import com.selimhorri.app.dto.OrderStatus;
 import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.dto.response.ResourceVersion;
+import com.selimhorri.app.dto.response.Versioned;
+import com.selimhorri.app.dto.response.collection.DtoPageResponse;
 import com.selimhorri.app.exception.wrapper.OrderItemNotFoundException;
 import com.selimhorri.app.helper.OrderItemMappingHelper;
+import com.selimhorri.app.metrics.ShippingMetrics;
 import com.selimhorri.app.repository.OrderItemRepository;
+import com.selimhorri.app.service.OrderItemEnrichmentService;
 import com.selimhorri.app.service.OrderItemService;
+import com.selimhorri.app.service.ShippingStatsService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Remote validation and enrichment run outside of any transaction, only the repository
+ * calls are wrapped in short read-only or write transactions so no pooled connection is
+ * held while waiting on PRODUCT-SERVICE or ORDER-SERVICE. Writes that follow a remote
+ * check rely on the primary key and the row version to detect concurrent changes. Those checks
+ * are made against fresh lookups, the cached and stale copies reads are served never decide a write.
+ * Order status changes caused by new shippings are queued in the order status outbox in the
+ * same transaction, ORDER-SERVICE is never called on the request path for them.
+ * Reads return shippings whose order the local order status projection knows as ORDERED, the
+ * status ORDER-SERVICE answers during enrichment is still checked against it. Shippings of
+ * orders the projection does not know yet are only served once ORDER-SERVICE answers ORDERED
+ * for them, by enrichment or, when orders are not expanded, by a lookup of just those orders.
+ * New rows carry a snapshot of their product, reads serve it and only ask PRODUCT-SERVICE
+ * for live products or for rows created without a snapshot.
+ */
 @Service
-@Transactional
 @Slf4j
 @RequiredArgsConstructor
 public class OrderItemServiceImpl implements OrderItemService {
 
 	private final OrderItemRepository orderItemRepository;
-	private final RestTemplate restTemplate;
+	private final ProductServiceClient productServiceClient;
+	private final OrderServiceClient orderServiceClient;
+	private final OrderItemEnrichmentService orderItemEnrichmentService;
+	private final ShippingProperties shippingProperties;
+	private final EntityManager entityManager;
+	private final ShippingMetrics shippingMetrics;
+	private final PlatformTransactionManager transactionManager;
+	private final ShippingStatsService shippingStatsService;
 
 	@Override
-	public List<OrderItemDto> findAll() {
-		log.info("*** OrderItemDto List, service; fetch all active orderItems *");
-		return this.orderItemRepository.findByIsActiveTrue()
+	public DtoPageResponse<OrderItemDto> findPage(final OrderItemQuery query) {
+		return this.findVersionedPage(query).getBody();
+	}
+
+	/**
+	 * The page is versioned by the rows it was read from, with the products and orders they were
+	 * enriched with.
+	 */
+	@Override
+	public Versioned<DtoPageResponse<OrderItemDto>> findVersionedPage(final OrderItemQuery query) {
+		log.info("*** OrderItemDto Page, service; fetch orderItems matching {} *", query);
+		final int pageSize = this.pageSize(query.getLimit());
+		final var rows = this.findPageRows(query, pageSize);
+		final boolean hasNext = rows.size() > pageSize;
+		final var pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+		final var nextCursor = hasNext ? String.valueOf(pageRows.get(pageSize - 1).getOrderId()) : null;
+
+		// Only the rows left by the filters are enriched
+		final var collection = List.copyOf(this.orderItemEnrichmentService.enrich(this.ordered(pageRows, query)
 				.stream()
-				.map(OrderItemMappingHelper::map)
-				.filter(o -> {
-					// Verificar producto
-					if (o.getProductDto() != null && o.getProductDto().getProductId() != null) {
-						try {
-							ProductDto product = this.restTemplate.getForObject(
-									AppConstant.DiscoveredDomainsApi.PRODUCT_SERVICE_API_URL + "/" +
-											o.getProductDto().getProductId(),
-									ProductDto.class);
-							if (product == null) {
-								log.warn("Product {} not found", o.getProductDto().getProductId());
-								return false;
-							}
-							o.setProductDto(product);
-						} catch (RestClientException e) {
-							log.warn("Failed to fetch product with id: {}", o.getProductDto().getProductId(), e);
-							return false;
-						}
-					} else {
-						return false;
-					}
-
-					// Verificar orden
-					if (o.getOrderDto() != null && o.getOrderDto().getOrderId() != null) {
-						try {
-							OrderDto order = this.restTemplate.getForObject(
-									AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/" +
-											o.getOrderDto().getOrderId(),
-									OrderDto.class);
-							if (order == null) {
-								log.warn("Order {} not found", o.getOrderDto().getOrderId());
-								return false;
-							}
-							System.out.println("====================");
-							System.out.println(OrderStatus.ORDERED.name());
-							System.out.println(order.getOrderStatus());
-							System.out.println("====================");
-
-							if (!OrderStatus.ORDERED.name().equals(order.getOrderStatus())) {
-								return false;
-							}
-							o.setOrderDto(order);
-						} catch (RestClientException e) {
-							log.warn("Failed to fetch order with id: {}", o.getOrderDto().getOrderId(), e);
-							return false;
-						}
-					} else {
-						return false;
-					}
-
-					return true;
+				.map(row -> {
+					final var orderItemDto = OrderItemMappingHelper.map(row);
+					if (query.isIncludeInactive())
+						orderItemDto.setActive(row.getActive());
+					return orderItemDto;
 				})
-				.distinct()
-				.collect(Collectors.toUnmodifiableList());
+				.collect(Collectors.toList()), query.getExpand(), query.isLiveProducts()));
+		return Versioned.<DtoPageResponse<OrderItemDto>>builder()
+				.body(DtoPageResponse.<OrderItemDto>builder()
+						.collection(collection)
+						.nextCursor(nextCursor)
+						.build())
+				.version(this.versionOf(pageRows, nextCursor, query, served(collection), false).orElse(null))
+				.build();
+	}
+
+	@Override
+	public Optional<ResourceVersion> findPageVersion(final OrderItemQuery query) {
+		final int pageSize = this.pageSize(query.getLimit());
+		final var rows = this.findPageRows(query, pageSize);
+		final boolean hasNext = rows.size() > pageSize;
+		final var pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+		return this.versionOf(pageRows, hasNext ? String.valueOf(pageRows.get(pageSize - 1).getOrderId()) : null,
+				query, Map.of(), false);
+	}
+
+	private int pageSize(final Integer limit) {
+		final var page = this.shippingProperties.getPage();
+		if (limit != null && limit < 1)
+			throw new IllegalArgumentException("Page limit must be a positive number");
+		return Math.min(limit == null ? page.getDefaultLimit() : limit, page.getMaxLimit());
+	}
+
+	/**
+	 * Rows whose order the projection does not know yet are kept if ORDER-SERVICE answers ORDERED
+	 * for it. Enrichment checks that for every row when orders are expanded.
+	 */
+	private List<OrderItemStatusView> ordered(final List<OrderItemStatusView> rows, final OrderItemQuery query) {
+		if (query.getExpand().contains(OrderItemExpand.ORDER))
+			return rows;
+		final var unknown = rows.stream()
+				.filter(row -> row.getOrderStatus() == null)
+				.map(OrderItemStatusView::getOrderId)
+				.collect(Collectors.toSet());
+		if (unknown.isEmpty())
+			return rows;
+
+		final var orders = this.orderServiceClient.findAllByIds(unknown);
+		int orderMissing = 0;
+		int orderStatus = 0;
+		final List<OrderItemStatusView> ordered = new ArrayList<>(rows.size());
+		for (final var row : rows) {
+			final var order = orders.get(row.getOrderId());
+			if (row.getOrderStatus() != null)
+				ordered.add(row);
+			else if (order == null)
+				orderMissing++;
+			else if (!OrderStatus.ORDERED.name().equals(order.getOrderStatus()))
+				orderStatus++;
+			else
+				ordered.add(row);
+		}
+		this.shippingMetrics.countDropped(ShippingMetrics.ORDER_MISSING, orderMissing);
+		this.shippingMetrics.countDropped(ShippingMetrics.ORDER_STATUS, orderStatus);
+		return ordered;
+	}
+
+	/**
+	 * One extra row tells whether a next page exists without another query.
+	 */
+	private List<OrderItemStatusView> findPageRows(final OrderItemQuery query, final int pageSize) {
+		if (query.getCreatedAfter() != null && query.getCreatedBefore() != null
+				&& !query.getCreatedAfter().isBefore(query.getCreatedBefore()))
+			throw new IllegalArgumentException("createdAfter must be before createdBefore");
+		return this.shippingMetrics.timeQuery("findViews", () -> this.readOnly(() ->
+				this.orderItemRepository.findViews(query, pageSize + 1)));
 	}
 
 	@Override
-	public OrderItemDto findById(final int orderItemId) {
+	public void exportAll(final Consumer<List<OrderItemDto>> chunkConsumer) {
+		log.info("*** OrderItemDto Stream, service; export all active orderItems *");
+		final int chunkSize = Math.max(1, this.shippingProperties.getExport().getChunkSize());
+
+		// Each chunk is read by keyset in its own short transaction, no cursor stays open
+		// while the previous chunk is enriched and written out
+		Integer after = Integer.MIN_VALUE;
+		List<OrderItemView> rows;
+		do {
+			final var from = after;
+			rows = this.shippingMetrics.timeQuery("findOrderedViewsAfter", () -> this.readOnly(() ->
+					this.orderItemRepository.findOrderedViewsAfter(
+							from, PageRequest.of(0, chunkSize))));
+			if (rows.isEmpty())
+				break;
+			after = rows.get(rows.size() - 1).getOrderId();
+			chunkConsumer.accept(this.orderItemEnrichmentService.enrich(rows.stream()
+					.map(OrderItemMappingHelper::map)
+					.collect(Collectors.toList())));
+		}
+		while (rows.size() == chunkSize);
+	}
+
+	@Override
+	public OrderItemDto findById(final int orderItemId, final boolean liveProducts) {
+		return this.findVersionedById(orderItemId, liveProducts).getBody();
+	}
+
+	@Override
+	public Versioned<OrderItemDto> findVersionedById(final int orderItemId, final boolean liveProducts) {
 		log.info("*** OrderItemDto, service; fetch orderItem by id *");
 
-		OrderItem orderItem = this.orderItemRepository.findById(orderItemId)
-				.filter(OrderItem::isActive)
+		// Shippings of orders known locally as anything but ORDERED are not found without asking
+		// ORDER-SERVICE, the order checked below settles the others
+		OrderItemStatusView orderItem = this.shippingMetrics.timeQuery("findOrderedViewByOrderId", () ->
+						this.readOnly(() -> this.orderItemRepository.findOrderedViewByOrderId(orderItemId)))
 				.orElseThrow(() -> new OrderItemNotFoundException(
 						String.format("Active OrderItem with id: %s not found", orderItemId)));
 
 		OrderItemDto dto = OrderItemMappingHelper.map(orderItem);
+		if (dto.getOrderDto() == null || dto.getOrderDto().getOrderId() == null) {
+			throw new OrderItemNotFoundException("No associated order found for this order item");
+		}
+
+		// The product snapshot taken at creation is served as is unless live details are asked for
+		final boolean fetchProduct = dto.getProductDto() != null && dto.getProductDto().getProductId() != null
+				&& (liveProducts || !OrderItemMappingHelper.hasProductSnapshot(dto));
+
+		// Product and order are fetched concurrently, then checked in the same order as before
+		final var productFuture = fetchProduct ?
+				this.productServiceClient.findByIdAsync(dto.getProductDto().getProductId())
+				: CompletableFuture.<Optional<ProductDto>>completedFuture(Optional.empty());
+		final var orderFuture = this.orderServiceClient.findByIdAsync(dto.getOrderDto().getOrderId());
 
 		// Verificar y cargar producto
-		if (dto.getProductDto() != null && dto.getProductDto().getProductId() != null) {
+		if (fetchProduct) {
 			try {
-				ProductDto product = this.restTemplate.getForObject(
-						AppConstant.DiscoveredDomainsApi.PRODUCT_SERVICE_API_URL + "/" +
-								dto.getProductDto().getProductId(),
-						ProductDto.class);
+				ProductDto product = await(productFuture)
+						.orElseThrow(() -> {
+							this.shippingMetrics.countDropped(ShippingMetrics.PRODUCT_MISSING, 1);
+							return new OrderItemNotFoundException(
+									"Product information not available for this order item");
+						});
 				dto.setProductDto(product);
 			} catch (RestClientException e) {
 				log.error("Failed to fetch product details for order item: {}", orderItemId, e);
@@ -119,32 +262,143 @@ public class OrderItemServiceImpl implements OrderItemService {
 		}
 
 		// Verificar y cargar orden, y comprobar su estado
-		if (dto.getOrderDto() != null && dto.getOrderDto().getOrderId() != null) {
-			try {
-				OrderDto order = this.restTemplate.getForObject(
-						AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/" +
-								dto.getOrderDto().getOrderId(),
-						OrderDto.class);
+		try {
+			OrderDto order = await(orderFuture)
+					.orElseThrow(() -> {
+						this.shippingMetrics.countDropped(ShippingMetrics.ORDER_MISSING, 1);
+						return new OrderItemNotFoundException("Associated order not found");
+					});
+
+			// Verificar que el estado sea ORDERED
+			if (!OrderStatus.ORDERED.name().equals(order.getOrderStatus())) {
+				this.shippingMetrics.countDropped(ShippingMetrics.ORDER_STATUS, 1);
+				throw new OrderItemNotFoundException("Shipping not found");
+			}
 
-				if (order == null) {
-					throw new OrderItemNotFoundException("Associated order not found");
-				}
+			dto.setOrderDto(order);
+		} catch (RestClientException e) {
+			log.error("Failed to fetch order details for order item: {}", orderItemId, e);
+			throw new OrderItemNotFoundException("Order information not available for this order item");
+		}
 
-				// Verificar que el estado sea ORDERED
-				if (!OrderStatus.ORDERED.name().equals(order.getOrderStatus())) {
-					throw new OrderItemNotFoundException("Shipping not found");
-				}
+		return Versioned.<OrderItemDto>builder()
+				.body(dto)
+				.version(this.versionOf(List.of(orderItem), null,
+						OrderItemQuery.builder().liveProducts(liveProducts).build(),
+						Map.of(dto.getOrderId(), dto), true).orElse(null))
+				.build();
+	}
 
-				dto.setOrderDto(order);
-			} catch (RestClientException e) {
-				log.error("Failed to fetch order details for order item: {}", orderItemId, e);
-				throw new OrderItemNotFoundException("Order information not available for this order item");
+	@Override
+	public List<OrderItemLookupResultDto> findAllByIds(final List<Integer> orderItemIds, final boolean liveProducts) {
+		log.info("*** OrderItemLookupResultDto List, service; fetch {} orderItems by id *", orderItemIds.size());
+		if (orderItemIds.stream().anyMatch(Objects::isNull))
+			throw new IllegalArgumentException("Order ids must not be NULL");
+		final var distinctIds = new LinkedHashSet<>(orderItemIds);
+		if (distinctIds.size() > this.shippingProperties.getPage().getMaxLimit())
+			throw new IllegalArgumentException("At most " + this.shippingProperties.getPage().getMaxLimit()
+					+ " shippings can be looked up at once");
+		if (distinctIds.isEmpty())
+			return List.of();
+
+		final Map<Integer, OrderItemStatusView> rows = this.shippingMetrics.timeQuery("findStatusViewsByOrderIdIn",
+						() -> this.readOnly(() -> this.orderItemRepository.findStatusViewsByOrderIdIn(distinctIds)))
+				.stream()
+				.collect(Collectors.toMap(OrderItemStatusView::getOrderId, Function.identity()));
+
+		// Each id gets its result, rows left visible are then enriched together
+		final Map<Integer, OrderItemLookupResultDto> results = new LinkedHashMap<>();
+		final List<OrderItemDto> visible = new ArrayList<>();
+		int orderStatus = 0;
+		for (final var orderItemId : distinctIds) {
+			final var row = rows.get(orderItemId);
+			final var result = OrderItemLookupResultDto.builder().orderId(orderItemId);
+			if (row == null || !Boolean.TRUE.equals(row.getActive()))
+				result.status(OrderItemLookupResultDto.Status.NOT_FOUND)
+						.error(String.format("Active OrderItem with id: %s not found", orderItemId));
+			else if (row.getOrderStatus() != null && !OrderStatus.ORDERED.name().equals(row.getOrderStatus())) {
+				orderStatus++;
+				result.status(OrderItemLookupResultDto.Status.FILTERED).error("Shipping not found");
 			}
-		} else {
-			throw new OrderItemNotFoundException("No associated order found for this order item");
+			else {
+				// Until enrichment confirms it, along with the status of orders not projected yet
+				result.status(OrderItemLookupResultDto.Status.FILTERED)
+						.error("Product or order information not available for this order item");
+				visible.add(OrderItemMappingHelper.map(row));
+			}
+			results.put(orderItemId, result.build());
 		}
+		this.shippingMetrics.countDropped(ShippingMetrics.ORDER_STATUS, orderStatus);
+
+		this.orderItemEnrichmentService.enrich(visible, EnumSet.allOf(OrderItemExpand.class), liveProducts)
+				.forEach(orderItemDto -> {
+					final var result = results.get(orderItemDto.getOrderId());
+					result.setStatus(OrderItemLookupResultDto.Status.FOUND);
+					result.setError(null);
+					result.setOrderItemDto(orderItemDto);
+				});
+		return List.copyOf(results.values());
+	}
 
-		return dto;
+	@Override
+	public Optional<ResourceVersion> findVersion(final int orderItemId, final boolean liveProducts) {
+		return this.shippingMetrics.timeQuery("findOrderedViewByOrderId", () ->
+						this.readOnly(() -> this.orderItemRepository.findOrderedViewByOrderId(orderItemId)))
+				.flatMap(row -> this.versionOf(List.of(row), null,
+						OrderItemQuery.builder().liveProducts(liveProducts).build(), Map.of(), true));
+	}
+
+	/**
+	 * Strong validator of what reading these rows answers: their versions and timestamps plus
+	 * the product and order each is enriched with, taken from the served shippings or else from
+	 * the cache. Empty when a product or order is not cached, only enriching can tell then, and
+	 * it leaves them cached for the next request. A product served from the row snapshot is
+	 * covered by the row version, a product not expanded does not count, nor an order not
+	 * expanded unless the projection does not know it.
+	 * Last-Modified is only answered for a single shipping: a row leaving a list, by a soft
+	 * delete or its order status, does not move the timestamps of the rows left in it.
+	 */
+	private Optional<ResourceVersion> versionOf(final List<OrderItemStatusView> rows, final String nextCursor,
+			final OrderItemQuery query, final Map<Integer, OrderItemDto> served, final boolean withLastModified) {
+		final boolean expandProduct = query.getExpand().contains(OrderItemExpand.PRODUCT);
+		final boolean expandOrder = query.getExpand().contains(OrderItemExpand.ORDER);
+		final var state = new StringBuilder();
+		Instant lastModified = null;
+		for (final var row : rows) {
+			final var servedRow = served.get(row.getOrderId());
+			final var product = !expandProduct || !query.isLiveProducts() && row.getProductTitle() != null ?
+					OptionalInt.of(0)
+					: servedRow != null ? OptionalInt.of(Objects.hashCode(servedRow.getProductDto()))
+					: this.productServiceClient.cachedFingerprint(row.getProductId());
+			final var order = expandOrder && servedRow != null ?
+					OptionalInt.of(Objects.hashCode(servedRow.getOrderDto()))
+					: expandOrder || row.getOrderStatus() == null ?
+							this.orderServiceClient.cachedFingerprint(row.getOrderId())
+					: OptionalInt.of(0);
+			if (product.isEmpty() || order.isEmpty())
+				return Optional.empty();
+			final var modified = row.getUpdatedAt() != null ? row.getUpdatedAt() : row.getCreatedAt();
+			if (modified != null && (lastModified == null || modified.isAfter(lastModified)))
+				lastModified = modified;
+			state.append(row.getOrderId()).append(':')
+					.append(row.getVersion()).append(':')
+					.append(modified).append(':')
+					.append(product.getAsInt()).append(':')
+					.append(order.getAsInt()).append(';');
+		}
+		state.append(nextCursor).append(':')
+				.append(new TreeSet<>(query.getExpand())).append(':')
+				.append(query.isLiveProducts()).append(':')
+				.append(query.isIncludeInactive());
+		return Optional.of(ResourceVersion.builder()
+				.etag("\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8)) + "\"")
+				.lastModified(withLastModified ? lastModified : null)
+				.build());
+	}
+
+	private static Map<Integer, OrderItemDto> served(final List<OrderItemDto> orderItemDtos) {
+		return orderItemDtos.stream()
+				.collect(Collectors.toMap(OrderItemDto::getOrderId, Function.identity()));
 	}
 
 	@Override
@@ -156,18 +410,16 @@ public class OrderItemServiceImpl implements OrderItemService {
 					"To create a shipping you have to provide a valid orderId, productId and orderedQuantity");
 		}
 
+		// Order and product are fetched concurrently, the order is still verified first
+		final var orderFuture = this.orderServiceClient.findByIdFreshAsync(orderItemDto.getOrderId());
+		final var productFuture = this.productServiceClient.findByIdFreshAsync(orderItemDto.getProductId());
+
 		// Verify the order exists first
 		OrderDto order;
 		try {
-			order = this.restTemplate.getForObject(
-					AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/"
-							+ orderItemDto.getOrderId(),
-					OrderDto.class);
-
-			if (order == null) {
-				throw new OrderItemNotFoundException(
-						"Order with ID " + orderItemDto.getOrderId() + " not found");
-			}
+			order = await(orderFuture)
+					.orElseThrow(() -> new OrderItemNotFoundException(
+							"Order with ID " + orderItemDto.getOrderId() + " not found"));
 
 			if (!order.getOrderStatus().equals(OrderStatus.CREATED.name())) {
 				throw new IllegalArgumentException(
@@ -178,16 +430,11 @@ public class OrderItemServiceImpl implements OrderItemService {
 		}
 
 		// Verify the product exists
+		ProductDto product;
 		try {
-			ProductDto product = this.restTemplate.getForObject(
-					AppConstant.DiscoveredDomainsApi.PRODUCT_SERVICE_API_URL + "/"
-							+ orderItemDto.getProductId(),
-					ProductDto.class);
-
-			if (product == null) {
-				throw new OrderItemNotFoundException(
-						"Product with ID " + orderItemDto.getProductId() + " not found");
-			}
+			product = await(productFuture)
+					.orElseThrow(() -> new OrderItemNotFoundException(
+							"Product with ID " + orderItemDto.getProductId() + " not found"));
 
 			if (product.getQuantity() < orderItemDto.getOrderedQuantity()) {
 				throw new IllegalArgumentException(
@@ -198,63 +445,232 @@ public class OrderItemServiceImpl implements OrderItemService {
 			throw new OrderItemNotFoundException("Error verifying product existence: " + e.getMessage());
 		}
 
-		// Save the order item
-		OrderItemDto savedItem = OrderItemMappingHelper.map(
-				this.orderItemRepository.save(OrderItemMappingHelper.mapForCreation(orderItemDto)));
-
-		// Update order status after successful save
+		// Save the order item together with its order status change, delivered by the outbox
+		// dispatcher once committed, and its count in the stats summary. An existing shipping is
+		// told by the insert itself
+		final var orderItem = OrderItemMappingHelper.mapForCreation(orderItemDto, product);
+		orderItem.setCreatedAt(Instant.now());
+		this.shippingStatsService.prepareSummary(List.of(orderItem));
+		final int[] inserted;
 		try {
-			String patchUrl = AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/"
-					+ orderItemDto.getOrderId() + "/status";
+			inserted = this.insertAllIfAbsent(List.of(orderItem));
+		}
+		catch (DataIntegrityViolationException e) {
+			throw new IllegalArgumentException("Shipping for order " + orderItemDto.getOrderId() + " already exists");
+		}
+		if (inserted[0] == 0)
+			throw new IllegalArgumentException("Shipping for order " + orderItemDto.getOrderId() + " already exists");
+		OrderItemDto savedItem = OrderItemMappingHelper.map(orderItem);
 
-			this.restTemplate.patchForObject(
-					patchUrl,
-					null, // No request body
-					Void.class);
+		// The product stock has moved on
+		this.productServiceClient.evict(orderItemDto.getProductId());
 
-		} catch (RestClientException e) {
-			log.error("Failed to update order status after saving item: " + e.getMessage());
+		return savedItem;
+	}
 
+	@Override
+	public List<OrderItemBatchResultDto> saveAll(final List<OrderItemDto> orderItemDtos) {
+		log.info("*** OrderItemBatchResultDto List, service; save {} orderItems *", orderItemDtos.size());
+		if (orderItemDtos.size() > this.shippingProperties.getBatch().getMaxSize()) {
+			throw new IllegalArgumentException(
+					"A batch may hold at most " + this.shippingProperties.getBatch().getMaxSize() + " shippings");
 		}
 
-		return savedItem;
+		final List<OrderItemBatchResultDto> results = new ArrayList<>(orderItemDtos.size());
+		for (int i = 0; i < orderItemDtos.size(); i++) {
+			final var orderItemDto = orderItemDtos.get(i);
+			results.add(OrderItemBatchResultDto.builder()
+					.index(i)
+					.orderId(orderItemDto == null ? null : orderItemDto.getOrderId())
+					.productId(orderItemDto == null ? null : orderItemDto.getProductId())
+					.success(true)
+					.build());
+		}
+
+		// Local checks first: complete input, one shipping per order. Existing rows are told by the insert
+		final var seenOrderIds = new HashSet<Integer>();
+		for (int i = 0; i < orderItemDtos.size(); i++) {
+			final var orderItemDto = orderItemDtos.get(i);
+			if (orderItemDto == null || orderItemDto.getOrderId() == null || orderItemDto.getProductId() == null
+					|| orderItemDto.getOrderedQuantity() == null)
+				reject(results.get(i),
+						"To create a shipping you have to provide a valid orderId, productId and orderedQuantity");
+			else if (!seenOrderIds.add(orderItemDto.getOrderId()))
+				reject(results.get(i), "Order with ID " + orderItemDto.getOrderId() + " appears more than once");
+		}
+
+		// Each distinct order and product is fetched once, both services concurrently. An id whose
+		// lookup failed is rejected like an unknown one
+		final var ordersFuture = this.orderServiceClient.findAllByIdsFreshAsync(results.stream()
+				.filter(OrderItemBatchResultDto::isSuccess)
+				.map(OrderItemBatchResultDto::getOrderId)
+				.collect(Collectors.toSet()));
+		final var productsFuture = this.productServiceClient.findAllByIdsFreshAsync(results.stream()
+				.filter(OrderItemBatchResultDto::isSuccess)
+				.map(OrderItemBatchResultDto::getProductId)
+				.collect(Collectors.toSet()));
+		final Map<Integer, OrderDto> orders = ordersFuture.join();
+		final Map<Integer, ProductDto> products = productsFuture.join();
+
+		final Map<Integer, Integer> requestedPerProduct = new HashMap<>();
+		for (final var result : results) {
+			if (!result.isSuccess())
+				continue;
+			final var order = orders.get(result.getOrderId());
+			final var product = products.get(result.getProductId());
+			if (order == null)
+				reject(result, "Order with ID " + result.getOrderId() + " not found");
+			else if (!OrderStatus.CREATED.name().equals(order.getOrderStatus()))
+				reject(result, "Cannot create a shipping for an order that is in any state other than CREATED");
+			else if (product == null)
+				reject(result, "Product with ID " + result.getProductId() + " not found");
+			else
+				requestedPerProduct.merge(result.getProductId(),
+						orderItemDtos.get(result.getIndex()).getOrderedQuantity(), Integer::sum);
+		}
+
+		// Stock is checked against the quantity requested by the whole batch
+		results.stream()
+				.filter(OrderItemBatchResultDto::isSuccess)
+				.filter(result -> requestedPerProduct.get(result.getProductId())
+						> products.get(result.getProductId()).getQuantity())
+				.forEach(result -> reject(result,
+						"You cannot order more units than there is available, available units: "
+								+ products.get(result.getProductId()).getQuantity()));
+
+		// Accepted rows are inserted in one batch, each unless its order already has a shipping,
+		// which rejects just that row
+		final var accepted = results.stream()
+				.filter(OrderItemBatchResultDto::isSuccess)
+				.collect(Collectors.toList());
+		final var createdAt = Instant.now();
+		final List<OrderItem> orderItems = accepted.stream()
+				.map(result -> {
+					final var orderItem = OrderItemMappingHelper.mapForCreation(
+							orderItemDtos.get(result.getIndex()), products.get(result.getProductId()));
+					orderItem.setCreatedAt(createdAt);
+					return orderItem;
+				})
+				.collect(Collectors.toList());
+		if (!orderItems.isEmpty()) {
+			this.shippingStatsService.prepareSummary(orderItems);
+			final int[] inserted;
+			try {
+				inserted = this.insertAllIfAbsent(orderItems);
+			}
+			catch (DataIntegrityViolationException e) {
+				throw new ConcurrencyFailureException(
+						"Shippings of this batch kept being created concurrently, nothing was saved", e);
+			}
+			for (int i = 0; i < accepted.size(); i++) {
+				final var result = accepted.get(i);
+				if (inserted[i] == 0)
+					reject(result, "Shipping for order " + result.getOrderId() + " already exists");
+				else
+					result.setOrderItemDto(OrderItemMappingHelper.map(orderItems.get(i)));
+			}
+		}
+
+		// Order statuses are updated by the outbox dispatcher
+		requestedPerProduct.keySet().forEach(this.productServiceClient::evict);
+
+		return results;
 	}
 
 	@Override
-	@Transactional
 	public void deleteById(final int orderItemId) {
 		log.info("*** Void, service; soft delete orderItem by id *");
 
-		this.orderItemRepository.findByOrderIdAndIsActiveTrue(orderItemId)
-				.ifPresentOrElse(orderItem -> {
-					// Verificar si la orden asociada tiene estado ORDERED
-					try {
-						OrderDto order = this.restTemplate.getForObject(
-								AppConstant.DiscoveredDomainsApi.ORDER_SERVICE_API_URL + "/" +
-										orderItem.getOrderId(),
-								OrderDto.class);
-
-						if (order == null) {
-							throw new OrderItemNotFoundException("Associated order not found");
-						}
-
-						if (!OrderStatus.ORDERED.name().equals(order.getOrderStatus())) {
-							throw new IllegalStateException(
-									"Cannot delete order item - associated order is not in ORDERED status");
-						}
-
-						orderItem.setActive(false);
-						this.orderItemRepository.save(orderItem);
-						log.info("OrderItem with id {} has been deactivated", orderItemId);
-
-					} catch (RestClientException e) {
-						log.error("Failed to fetch order details for order item: {}", orderItemId, e);
-						throw new OrderItemNotFoundException("Order information not available for this order item");
-					}
-
-				}, () -> {
-					throw new OrderItemNotFoundException(
-							String.format("OrderItem with id: %s not found", orderItemId));
-				});
+		final var orderItem = this.shippingMetrics.timeQuery("findActiveViewByOrderId", () ->
+						this.readOnly(() -> this.orderItemRepository.findActiveViewByOrderId(orderItemId)))
+				.orElseThrow(() -> new OrderItemNotFoundException(
+						String.format("OrderItem with id: %s not found", orderItemId)));
+
+		// Verificar si la orden asociada tiene estado ORDERED
+		try {
+			OrderDto order = this.orderServiceClient.findByIdFresh(orderItem.getOrderId())
+					.orElseThrow(() -> new OrderItemNotFoundException("Associated order not found"));
+
+			if (!OrderStatus.ORDERED.name().equals(order.getOrderStatus())) {
+				throw new IllegalStateException(
+						"Cannot delete order item - associated order is not in ORDERED status");
+			}
+		} catch (RestClientException e) {
+			log.error("Failed to fetch order details for order item: {}", orderItemId, e);
+			throw new OrderItemNotFoundException("Order information not available for this order item");
+		}
+
+		// Only the request whose update still finds the row active deactivates it and uncounts it
+		final int deactivated = this.shippingMetrics.timeQuery("deactivate", () -> this.inTransaction(() -> {
+			final int updated = this.orderItemRepository.deactivate(orderItemId, Instant.now());
+			if (updated > 0)
+				this.shippingStatsService.removeFromSummary(orderItem);
+			return updated;
+		}));
+		if (deactivated == 0)
+			throw new OrderItemNotFoundException(String.format("OrderItem with id: %s not found", orderItemId));
+		log.info("OrderItem with id {} has been deactivated", orderItemId);
+	}
+
+	/**
+	 * Inserts the rows whose order has no shipping yet, together with their order status changes
+	 * and their count in the stats summary, and answers the update count of each row. A transaction
+	 * that lost a deadlock or a primary key race to concurrent inserts is retried once, the retry
+	 * sees the rows those committed and answers 0 for them.
+	 */
+	private int[] insertAllIfAbsent(final List<OrderItem> orderItems) {
+		try {
+			return this.tryInsertAllIfAbsent(orderItems);
+		}
+		catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+			log.info("*** int[], service; retry inserting {} orderItems after {} *", orderItems.size(),
+					e.getClass().getSimpleName());
+			return this.tryInsertAllIfAbsent(orderItems);
+		}
+	}
+
+	private int[] tryInsertAllIfAbsent(final List<OrderItem> orderItems) {
+		return this.shippingMetrics.timeQuery("insertAllIfAbsent", () -> this.inTransaction(() -> {
+			final int[] inserted = this.orderItemRepository.insertAllIfAbsent(orderItems);
+			final List<OrderItem> insertedItems = new ArrayList<>(orderItems.size());
+			for (int i = 0; i < inserted.length; i++) {
+				if (inserted[i] == 0)
+					continue;
+				this.entityManager.persist(OrderStatusOutbox.of(orderItems.get(i).getOrderId()));
+				insertedItems.add(orderItems.get(i));
+			}
+			this.shippingStatsService.addToSummary(insertedItems);
+			return inserted;
+		}));
 	}
+
+	private <T> T readOnly(final Supplier<T> work) {
+		final var transactionTemplate = new TransactionTemplate(this.transactionManager);
+		transactionTemplate.setReadOnly(true);
+		return transactionTemplate.execute(status -> work.get());
+	}
+
+	private <T> T inTransaction(final Supplier<T> work) {
+		return new TransactionTemplate(this.transactionManager).execute(status -> work.get());
+	}
+
+	/**
+	 * Joins a lookup, rethrowing its failure as thrown by the client.
+	 */
+	private static <T> Optional<T> await(final CompletableFuture<Optional<T>> lookup) {
+		try {
+			return lookup.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw e;
+		}
+	}
+
+	private static void reject(final OrderItemBatchResultDto result, final String error) {
+		result.setSuccess(false);
+		result.setError(error);
+	}
+
 }
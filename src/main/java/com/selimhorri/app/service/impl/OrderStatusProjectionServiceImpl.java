@@ -0,0 +1,180 @@
+package com.selimhorri.app.service.impl;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.selimhorri.app.client.OrderServiceClient;
+import com.selimhorri.app.config.shipping.ShippingProperties;
+import com.selimhorri.app.config.shipping.ShippingProperties.OrderStatusProperties;
+import com.selimhorri.app.domain.OrderStatusProjection;
+import com.selimhorri.app.dto.OrderStatusChangeDto;
+import com.selimhorri.app.metrics.EndpointContext;
+import com.selimhorri.app.repository.OrderItemRepository;
+import com.selimhorri.app.repository.OrderStatusProjectionRepository;
+import com.selimhorri.app.service.OrderStatusProjectionService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Each change is recorded with a conditional update, falling back to an insert for orders
+ * not known yet, so notifications delivered out of order or twice leave the latest status.
+ * A full resync runs at startup and then periodically.
+ */
+@Service
+@Slf4j
+public class OrderStatusProjectionServiceImpl implements OrderStatusProjectionService {
+
+	private final OrderStatusProjectionRepository orderStatusProjectionRepository;
+	private final OrderItemRepository orderItemRepository;
+	private final OrderServiceClient orderServiceClient;
+	private final OrderStatusProperties orderStatusProperties;
+	private final ThreadPoolTaskScheduler shippingTaskScheduler;
+	private final EntityManager entityManager;
+	private final PlatformTransactionManager transactionManager;
+	private final MeterRegistry meterRegistry;
+	private final Timer resyncTimer;
+
+	public OrderStatusProjectionServiceImpl(
+			final OrderStatusProjectionRepository orderStatusProjectionRepository,
+			final OrderItemRepository orderItemRepository,
+			final OrderServiceClient orderServiceClient,
+			final ShippingProperties shippingProperties,
+			@Qualifier("shippingTaskScheduler") final ThreadPoolTaskScheduler shippingTaskScheduler,
+			final EntityManager entityManager,
+			final PlatformTransactionManager transactionManager,
+			final MeterRegistry meterRegistry) {
+		this.orderStatusProjectionRepository = orderStatusProjectionRepository;
+		this.orderItemRepository = orderItemRepository;
+		this.orderServiceClient = orderServiceClient;
+		this.orderStatusProperties = shippingProperties.getOrderStatus();
+		this.shippingTaskScheduler = shippingTaskScheduler;
+		this.entityManager = entityManager;
+		this.transactionManager = transactionManager;
+		this.meterRegistry = meterRegistry;
+		this.resyncTimer = Timer.builder("shipping.order_status.resync")
+				.description("Time taken by a full resync of the order status projection")
+				.register(meterRegistry);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!this.orderStatusProperties.isResyncEnabled()) {
+			log.info("*** Order status resync disabled *");
+			return;
+		}
+		this.shippingTaskScheduler.scheduleWithFixedDelay(this::scheduledResync,
+				this.orderStatusProperties.getResyncInterval());
+	}
+
+	@Override
+	public int apply(final List<OrderStatusChangeDto> changes) {
+		log.info("*** Integer, service; apply {} order status changes *", changes.size());
+		if (changes.stream().anyMatch(change -> change == null || change.getOrderId() == null
+				|| change.getOrderStatus() == null || change.getOrderStatus().isBlank()))
+			throw new IllegalArgumentException("Each order status change needs an orderId and an orderStatus");
+
+		final var receivedAt = Instant.now();
+		return (int) changes.stream()
+				.filter(change -> this.record(change.getOrderId(), change.getOrderStatus(),
+						change.getChangedAt() != null ? change.getChangedAt() : receivedAt))
+				.count();
+	}
+
+	@Override
+	public int refresh(final Collection<Integer> orderIds) {
+		if (orderIds.isEmpty())
+			return 0;
+		// Taken before the read, a notification of a later change still wins over it. Orders whose
+		// lookup failed are skipped, a stale copy recorded as read now could undo a later change
+		final var readAt = Instant.now();
+		orderIds.forEach(this.orderServiceClient::evict);
+		return (int) this.orderServiceClient.findAllByIdsFresh(orderIds).values().stream()
+				.filter(order -> order.getOrderStatus() != null)
+				.filter(order -> this.record(order.getOrderId(), order.getOrderStatus(), readAt))
+				.count();
+	}
+
+	@Override
+	public int resync() {
+		log.info("*** Integer, service; resync order status projection *");
+		final int batchSize = Math.max(1, this.orderStatusProperties.getResyncBatchSize());
+		return this.resyncTimer.record(() -> {
+			int recorded = 0;
+			Integer after = Integer.MIN_VALUE;
+			List<Integer> orderIds;
+			do {
+				final var from = after;
+				orderIds = this.readOnly(() -> this.orderItemRepository.findActiveOrderIdsAfter(
+						from, PageRequest.of(0, batchSize)));
+				if (orderIds.isEmpty())
+					break;
+				after = orderIds.get(orderIds.size() - 1);
+				recorded += this.refresh(orderIds);
+			}
+			while (orderIds.size() == batchSize);
+			return recorded;
+		});
+	}
+
+	private void scheduledResync() {
+		try {
+			final int recorded = EndpointContext.callAs("resync", this::resync);
+			log.info("*** Order status projection resynced; {} orders *", recorded);
+		}
+		catch (RuntimeException e) {
+			log.error("Order status resync failed: {}", e.getMessage(), e);
+		}
+	}
+
+	private boolean record(final Integer orderId, final String orderStatus, final Instant changedAt) {
+		final boolean recorded = this.recordUnlessNewer(orderId, orderStatus, changedAt);
+		this.meterRegistry.counter("shipping.order_status.changes", "outcome", recorded ? "recorded" : "stale")
+				.increment();
+		return recorded;
+	}
+
+	private boolean recordUnlessNewer(final Integer orderId, final String orderStatus, final Instant changedAt) {
+		if (this.orderStatusProjectionRepository.updateUnlessNewer(orderId, orderStatus, changedAt) > 0)
+			return true;
+		if (this.orderStatusProjectionRepository.existsById(orderId))
+			return false;
+		try {
+			this.inTransaction(() -> {
+				this.entityManager.persist(new OrderStatusProjection(orderId, orderStatus, changedAt));
+				return null;
+			});
+			return true;
+		}
+		catch (DataIntegrityViolationException e) {
+			// Inserted concurrently since the update above
+			return this.orderStatusProjectionRepository.updateUnlessNewer(orderId, orderStatus, changedAt) > 0;
+		}
+	}
+
+	private <T> T readOnly(final Supplier<T> work) {
+		final var transactionTemplate = new TransactionTemplate(this.transactionManager);
+		transactionTemplate.setReadOnly(true);
+		return transactionTemplate.execute(status -> work.get());
+	}
+
+	private <T> T inTransaction(final Supplier<T> work) {
+		return new TransactionTemplate(this.transactionManager).execute(status -> work.get());
+	}
+
+}
@@ -0,0 +1,188 @@
+package com.selimhorri.app.service.impl;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.selimhorri.app.config.shipping.ShippingProperties;
+import com.selimhorri.app.config.shipping.ShippingProperties.StatsProperties;
+import com.selimhorri.app.domain.OrderItem;
+import com.selimhorri.app.domain.ShippingDailyStats;
+import com.selimhorri.app.domain.projection.OrderItemView;
+import com.selimhorri.app.dto.DailyShippingStatsDto;
+import com.selimhorri.app.dto.ProductShippingStatsDto;
+import com.selimhorri.app.metrics.ShippingMetrics;
+import com.selimhorri.app.repository.OrderItemRepository;
+import com.selimhorri.app.repository.ShippingDailyStatsRepository;
+import com.selimhorri.app.service.ShippingStatsService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Aggregates are grouped by the database, from the {@code shipping_daily_stats} summary or
+ * straight from {@code order_items}, and kept in memory for a short while. The summary is
+ * maintained with in place increments in the transactions writing the shippings, its rows
+ * being created beforehand so those transactions never race on an insert.
+ * Days are taken in the JVM time zone, the one timestamps are written in.
+ */
+@Service
+@Slf4j
+public class ShippingStatsServiceImpl implements ShippingStatsService {
+
+	private final OrderItemRepository orderItemRepository;
+	private final ShippingDailyStatsRepository shippingDailyStatsRepository;
+	private final StatsProperties statsProperties;
+	private final EntityManager entityManager;
+	private final ShippingMetrics shippingMetrics;
+	private final PlatformTransactionManager transactionManager;
+	private final Cache<String, List<ProductShippingStatsDto>> byProductCache;
+	private final Cache<List<LocalDate>, List<DailyShippingStatsDto>> byDayCache;
+
+	public ShippingStatsServiceImpl(
+			final OrderItemRepository orderItemRepository,
+			final ShippingDailyStatsRepository shippingDailyStatsRepository,
+			final ShippingProperties shippingProperties,
+			final EntityManager entityManager,
+			final ShippingMetrics shippingMetrics,
+			final PlatformTransactionManager transactionManager) {
+		this.orderItemRepository = orderItemRepository;
+		this.shippingDailyStatsRepository = shippingDailyStatsRepository;
+		this.statsProperties = shippingProperties.getStats();
+		this.entityManager = entityManager;
+		this.shippingMetrics = shippingMetrics;
+		this.transactionManager = transactionManager;
+		this.byProductCache = Caffeine.newBuilder()
+				.expireAfterWrite(this.statsProperties.getCacheTtl())
+				.maximumSize(1)
+				.build();
+		this.byDayCache = Caffeine.newBuilder()
+				.expireAfterWrite(this.statsProperties.getCacheTtl())
+				.maximumSize(100)
+				.build();
+	}
+
+	@Override
+	public List<ProductShippingStatsDto> findByProduct() {
+		log.info("*** ProductShippingStatsDto List, service; sum shippings by product *");
+		return this.byProductCache.get("all", key -> this.statsProperties.isReadFromSummary() ?
+				this.shippingMetrics.timeQuery("sumSummaryByProduct", () ->
+						this.readOnly(this.shippingDailyStatsRepository::sumByProduct))
+				: this.shippingMetrics.timeQuery("sumByProduct", () ->
+						this.readOnly(this.orderItemRepository::sumByProduct)));
+	}
+
+	@Override
+	public List<DailyShippingStatsDto> findByDay(final LocalDate from, final LocalDate to) {
+		final var last = to != null ? to : LocalDate.now(ZoneId.systemDefault());
+		final var first = from != null ? from : last.minusDays(this.statsProperties.getDefaultDays() - 1L);
+		if (first.isAfter(last))
+			throw new IllegalArgumentException("from must not be after to");
+		if (ChronoUnit.DAYS.between(first, last) >= this.statsProperties.getMaxDays())
+			throw new IllegalArgumentException(
+					"Daily stats cover at most " + this.statsProperties.getMaxDays() + " days at once");
+
+		log.info("*** DailyShippingStatsDto List, service; sum shippings by day from {} to {} *", first, last);
+		return this.byDayCache.get(List.of(first, last), key -> this.statsProperties.isReadFromSummary() ?
+				this.shippingMetrics.timeQuery("sumSummaryByDay", () ->
+						this.readOnly(() -> this.shippingDailyStatsRepository.sumByDay(first, last)))
+				: this.sumByDay(first, last));
+	}
+
+	private List<DailyShippingStatsDto> sumByDay(final LocalDate first, final LocalDate last) {
+		final var zone = ZoneId.systemDefault();
+		final Instant from = first.atStartOfDay(zone).toInstant();
+		final Instant to = last.plusDays(1).atStartOfDay(zone).toInstant();
+		return this.shippingMetrics.timeQuery("sumByDay", () ->
+						this.readOnly(() -> this.orderItemRepository.sumByDay(from, to)))
+				.stream()
+				.map(row -> DailyShippingStatsDto.builder()
+						.day(LocalDate.of(row.getYear(), row.getMonth(), row.getDay()))
+						.shippings(row.getShippings())
+						.orderedQuantity(row.getOrderedQuantity())
+						.build())
+				.sorted(Comparator.comparing(DailyShippingStatsDto::getDay))
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public void prepareSummary(final Collection<OrderItem> orderItems) {
+		final var keys = orderItems.stream()
+				.map(orderItem -> new ShippingDailyStats.Key(orderItem.getProductId(), dayOf(orderItem.getCreatedAt())))
+				.collect(Collectors.toSet());
+		keys.removeAll(this.shippingMetrics.timeQuery("findSummaryRows", () ->
+						this.readOnly(() -> this.shippingDailyStatsRepository.findAllById(keys)))
+				.stream()
+				.map(row -> new ShippingDailyStats.Key(row.getProductId(), row.getStatsDay()))
+				.collect(Collectors.toSet()));
+		keys.forEach(key -> {
+			try {
+				this.inTransaction(() -> {
+					this.entityManager.persist(ShippingDailyStats.builder()
+							.productId(key.getProductId())
+							.statsDay(key.getStatsDay())
+							.build());
+					return null;
+				});
+			}
+			catch (DataIntegrityViolationException e) {
+				// Created concurrently, all the same
+			}
+		});
+	}
+
+	@Override
+	public void addToSummary(final Collection<OrderItem> orderItems) {
+		final Map<ShippingDailyStats.Key, long[]> increments = new HashMap<>();
+		orderItems.forEach(orderItem -> {
+			final var increment = increments.computeIfAbsent(
+					new ShippingDailyStats.Key(orderItem.getProductId(), dayOf(orderItem.getCreatedAt())),
+					key -> new long[2]);
+			increment[0]++;
+			increment[1] += quantityOf(orderItem.getOrderedQuantity());
+		});
+		increments.forEach((key, increment) -> this.shippingDailyStatsRepository.add(key.getProductId(),
+				key.getStatsDay(), increment[0], increment[1]));
+	}
+
+	@Override
+	public void removeFromSummary(final OrderItemView orderItem) {
+		this.shippingDailyStatsRepository.add(orderItem.getProductId(), dayOf(orderItem.getCreatedAt()),
+				-1, -quantityOf(orderItem.getOrderedQuantity()));
+	}
+
+	private static LocalDate dayOf(final Instant createdAt) {
+		return LocalDate.ofInstant(createdAt != null ? createdAt : Instant.now(), ZoneId.systemDefault());
+	}
+
+	private static long quantityOf(final Integer orderedQuantity) {
+		return orderedQuantity == null ? 0 : orderedQuantity;
+	}
+
+	private <T> T readOnly(final Supplier<T> work) {
+		final var transactionTemplate = new TransactionTemplate(this.transactionManager);
+		transactionTemplate.setReadOnly(true);
+		return transactionTemplate.execute(status -> work.get());
+	}
+
+	private <T> T inTransaction(final Supplier<T> work) {
+		return new TransactionTemplate(this.transactionManager).execute(status -> work.get());
+	}
+
+}
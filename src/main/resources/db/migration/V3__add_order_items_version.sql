@@ -0,0 +1 @@
+ALTER TABLE order_items ADD COLUMN version INT NOT NULL DEFAULT 0;
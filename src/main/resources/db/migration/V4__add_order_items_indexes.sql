@@ -0,0 +1,3 @@
+-- Active rows are read in order id order, time based reads go by updated_at
+CREATE INDEX idx_order_items_active_order ON order_items (is_active, order_id);
+CREATE INDEX idx_order_items_updated_at ON order_items (updated_at);
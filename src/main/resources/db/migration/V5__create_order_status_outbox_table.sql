@@ -0,0 +1,12 @@
+CREATE TABLE order_status_outbox (
+    order_id INT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    claim_token VARCHAR(36) NULL DEFAULT NULL,
+    last_error VARCHAR(255) NULL DEFAULT NULL,
+    PRIMARY KEY (order_id)
+);
+
+CREATE INDEX idx_order_status_outbox_next_attempt ON order_status_outbox (next_attempt_at);
+CREATE INDEX idx_order_status_outbox_claim ON order_status_outbox (claim_token);
@@ -0,0 +1,8 @@
+CREATE TABLE order_status (
+    order_id INT NOT NULL,
+    order_status VARCHAR(32) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (order_id)
+);
+
+CREATE INDEX idx_order_status_status ON order_status (order_status, order_id);
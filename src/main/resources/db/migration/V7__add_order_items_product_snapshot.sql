@@ -0,0 +1,5 @@
+-- Product details as they were when the shipping was created, rows created before stay NULL
+ALTER TABLE order_items ADD COLUMN product_title VARCHAR(255) NULL;
+ALTER TABLE order_items ADD COLUMN product_sku VARCHAR(255) NULL;
+ALTER TABLE order_items ADD COLUMN product_image_url VARCHAR(255) NULL;
+ALTER TABLE order_items ADD COLUMN product_price_unit DOUBLE NULL;
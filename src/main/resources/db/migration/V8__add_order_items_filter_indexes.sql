@@ -0,0 +1,3 @@
+-- Filtered reads still page in order id order: by product, or by creation time
+CREATE INDEX idx_order_items_product_order ON order_items (product_id, order_id);
+CREATE INDEX idx_order_items_created_at ON order_items (created_at);
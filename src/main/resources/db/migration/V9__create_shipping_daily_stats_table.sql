@@ -0,0 +1,16 @@
+CREATE TABLE shipping_daily_stats (
+    product_id INT NOT NULL,
+    stats_day DATE NOT NULL,
+    shippings BIGINT NOT NULL DEFAULT 0,
+    ordered_quantity BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id, stats_day)
+);
+
+CREATE INDEX idx_shipping_daily_stats_day ON shipping_daily_stats (stats_day);
+
+-- Days are taken as stored, in the time zone the application writes timestamps in
+INSERT INTO shipping_daily_stats (product_id, stats_day, shippings, ordered_quantity)
+SELECT product_id, CAST(created_at AS DATE), COUNT(*), COALESCE(SUM(ordered_quantity), 0)
+FROM order_items
+WHERE is_active = TRUE
+GROUP BY product_id, CAST(created_at AS DATE);
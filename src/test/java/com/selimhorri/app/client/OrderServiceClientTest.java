@@ -0,0 +1,138 @@
+package com.selimhorri.app.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.selimhorri.app.config.client.ClientProperties;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.OrderStatus;
+import com.selimhorri.app.metrics.ShippingMetrics;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Lookups through a stubbed {@link RestTemplate}, run on the calling thread and never retried.
+ */
+class OrderServiceClientTest {
+
+	private RestTemplate restTemplate;
+	private ScheduledExecutorService scheduler;
+	private OrderServiceClient orderServiceClient;
+
+	@BeforeEach
+	void setUp() {
+		this.restTemplate = mock(RestTemplate.class);
+		this.scheduler = Executors.newSingleThreadScheduledExecutor();
+		final var guard = new RemoteCallGuard(
+				Bulkhead.ofDefaults("orderService"),
+				CircuitBreaker.ofDefaults("orderService"),
+				Retry.of("orderService", RetryConfig.custom().maxAttempts(1).build()),
+				TimeLimiter.ofDefaults("orderService"),
+				this.scheduler);
+		final var guardFactory = mock(RemoteCallGuardFactory.class);
+		when(guardFactory.forInstance("orderService")).thenReturn(guard);
+		final var meterRegistry = new SimpleMeterRegistry();
+		this.orderServiceClient = new OrderServiceClient(this.restTemplate, Runnable::run, new ClientProperties(),
+				meterRegistry, guardFactory, new ShippingMetrics(meterRegistry));
+	}
+
+	@AfterEach
+	void tearDown() {
+		this.scheduler.shutdownNow();
+	}
+
+	@Test
+	void readsFallBackToTheLastKnownCopyWhenOrderServiceIsDown() {
+		this.answerOnceThenFail(order(1, OrderStatus.CREATED));
+		assertThat(this.orderServiceClient.findById(1)).isPresent();
+		this.orderServiceClient.evict(1);
+
+		assertThat(this.orderServiceClient.findById(1)).map(OrderDto::getOrderStatus)
+				.contains(OrderStatus.CREATED.name());
+		assertThat(this.orderServiceClient.findByIdAsync(1).join()).isPresent();
+		assertThat(this.orderServiceClient.findAllByIds(List.of(1))).containsKey(1);
+	}
+
+	@Test
+	void freshLookupsNeverServeTheLastKnownCopy() {
+		this.answerOnceThenFail(order(1, OrderStatus.CREATED));
+		assertThat(this.orderServiceClient.findByIdFresh(1)).isPresent();
+		this.orderServiceClient.evict(1);
+
+		assertThatThrownBy(() -> this.orderServiceClient.findByIdFresh(1))
+				.isInstanceOf(ResourceAccessException.class);
+		assertThatThrownBy(() -> this.orderServiceClient.findByIdFreshAsync(1).join())
+				.isInstanceOf(CompletionException.class)
+				.hasCauseInstanceOf(ResourceAccessException.class);
+		assertThat(this.orderServiceClient.findAllByIdsFresh(List.of(1))).isEmpty();
+	}
+
+	@Test
+	void freshLookupsBypassCopiesWithinTheirTtlAndRefreshThem() {
+		when(this.restTemplate.getForObject(anyString(), eq(OrderDto.class)))
+				.thenReturn(order(1, OrderStatus.CREATED))
+				.thenReturn(order(1, OrderStatus.ORDERED));
+		assertThat(this.orderServiceClient.findById(1)).map(OrderDto::getOrderStatus)
+				.contains(OrderStatus.CREATED.name());
+
+		assertThat(this.orderServiceClient.findByIdFresh(1)).map(OrderDto::getOrderStatus)
+				.contains(OrderStatus.ORDERED.name());
+		assertThat(this.orderServiceClient.findById(1)).map(OrderDto::getOrderStatus)
+				.contains(OrderStatus.ORDERED.name());
+	}
+
+	@Test
+	void freshLookupsFailRatherThanServeACopyWithinItsTtl() {
+		this.answerOnceThenFail(order(1, OrderStatus.ORDERED));
+		assertThat(this.orderServiceClient.findById(1)).isPresent();
+
+		assertThatThrownBy(() -> this.orderServiceClient.findByIdFresh(1))
+				.isInstanceOf(ResourceAccessException.class);
+		assertThat(this.orderServiceClient.findAllByIdsFresh(List.of(1))).isEmpty();
+		assertThat(this.orderServiceClient.findById(1)).isPresent();
+	}
+
+	@Test
+	void freshLookupsAskAgainForAnIdKnownToBeMissing() {
+		when(this.restTemplate.getForObject(anyString(), eq(OrderDto.class)))
+				.thenReturn(null)
+				.thenReturn(order(1, OrderStatus.CREATED));
+		assertThat(this.orderServiceClient.findById(1)).isEmpty();
+
+		assertThat(this.orderServiceClient.findByIdFresh(1)).isPresent();
+	}
+
+	private void answerOnceThenFail(final OrderDto order) {
+		when(this.restTemplate.getForObject(anyString(), eq(OrderDto.class)))
+				.thenReturn(order)
+				.thenThrow(new ResourceAccessException("ORDER-SERVICE is down"));
+	}
+
+	private static OrderDto order(final int orderId, final OrderStatus orderStatus) {
+		return OrderDto.builder()
+				.orderId(orderId)
+				.orderStatus(orderStatus.name())
+				.build();
+	}
+
+}
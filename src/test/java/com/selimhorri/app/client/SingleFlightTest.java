@@ -0,0 +1,133 @@
+package com.selimhorri.app.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTest {
+
+	private ExecutorService executor;
+	private SimpleMeterRegistry meterRegistry;
+	private SingleFlight<String> singleFlight;
+
+	@BeforeEach
+	void setUp() {
+		this.executor = Executors.newCachedThreadPool();
+		this.meterRegistry = new SimpleMeterRegistry();
+		this.singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), this.meterRegistry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void concurrentLookupsOfAnIdShareOneCall() throws Exception {
+		final var calls = new AtomicInteger();
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+		final var owner = CompletableFuture.supplyAsync(() -> this.singleFlight.execute(1, () -> {
+			calls.incrementAndGet();
+			started.countDown();
+			await(release);
+			return "one";
+		}), this.executor);
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+		final var joiner = CompletableFuture.supplyAsync(() -> this.singleFlight.execute(1, () -> {
+			calls.incrementAndGet();
+			return "again";
+		}), this.executor);
+		this.awaitJoiners(1);
+		release.countDown();
+
+		assertThat(owner.get(5, TimeUnit.SECONDS)).isEqualTo("one");
+		assertThat(joiner.get(5, TimeUnit.SECONDS)).isEqualTo("one");
+		assertThat(calls).hasValue(1);
+	}
+
+	@Test
+	void aFailedLookupFailsItsJoinersAndIsNotKept() throws Exception {
+		final var claim = this.singleFlight.claim(Set.of(1));
+		final var joiner = CompletableFuture.supplyAsync(() -> this.singleFlight.execute(1, () -> "again"),
+				this.executor);
+		this.awaitJoiners(1);
+
+		this.singleFlight.fail(claim, 1, new ResourceAccessException("down"));
+
+		assertThat(claim.getOwned()).containsExactly(1);
+		assertThatThrownBy(() -> joiner.get(5, TimeUnit.SECONDS))
+				.hasCauseInstanceOf(ResourceAccessException.class);
+		assertThat(this.singleFlight.execute(1, () -> "next")).isEqualTo("next");
+	}
+
+	@Test
+	void anErrorThrownByTheCallIsPropagatedAndFreesTheId() {
+		assertThatThrownBy(() -> this.singleFlight.execute(1, () -> {
+			throw new StackOverflowError();
+		})).isInstanceOf(StackOverflowError.class);
+
+		assertThat(this.singleFlight.claim(Set.of(1)).getOwned()).containsExactly(1);
+	}
+
+	@Test
+	void aJoinerGivesUpOnALookupRunningPastTheJoinTimeout() {
+		final var singleFlight = new SingleFlight<String>("test", Duration.ofMillis(50), new SimpleMeterRegistry());
+		assertThat(singleFlight.claim(Set.of(1)).getOwned()).containsExactly(1);
+
+		assertThatThrownBy(() -> singleFlight.execute(1, () -> "again"))
+				.isInstanceOf(ResourceAccessException.class);
+		assertThat(singleFlight.execute(1, () -> "next")).isEqualTo("next");
+	}
+
+	@Test
+	void anOwnerFinishingAfterItsLookupWasDroppedLeavesTheNextLookupRegistered() {
+		final var singleFlight = new SingleFlight<String>("test", Duration.ofMillis(50), new SimpleMeterRegistry());
+		final var slow = singleFlight.claim(Set.of(1));
+		assertThatThrownBy(() -> singleFlight.execute(1, () -> "again"))
+				.isInstanceOf(ResourceAccessException.class);
+		final var next = singleFlight.claim(Set.of(1));
+		assertThat(next.getOwned()).containsExactly(1);
+
+		singleFlight.complete(slow, 1, "slow");
+
+		final var joiner = singleFlight.claim(Set.of(1));
+		assertThat(joiner.getOwned()).isEmpty();
+		singleFlight.complete(next, 1, "next");
+		assertThat(singleFlight.join(1, joiner.getJoined().get(1))).isEqualTo("next");
+	}
+
+	private void awaitJoiners(final int joiners) throws InterruptedException {
+		final var coalesced = this.meterRegistry.get("remote.lookup.coalesced").counter();
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (coalesced.count() < joiners && System.nanoTime() < deadline)
+			Thread.sleep(5);
+		assertThat(coalesced.count()).isEqualTo((double) joiners);
+	}
+
+	private static void await(final CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
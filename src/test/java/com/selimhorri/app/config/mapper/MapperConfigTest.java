@@ -0,0 +1,35 @@
+package com.selimhorri.app.config.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.selimhorri.app.dto.DailyShippingStatsDto;
+import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+
+class MapperConfigTest {
+
+	private final ObjectMapper objectMapper = new MapperConfig().objectMapperBean();
+
+	@Test
+	void dailyStatsAreWrittenWithTheirDayAsADate() throws Exception {
+		final var json = this.objectMapper.writeValueAsString(new DtoCollectionResponse<>(List.of(
+				new DailyShippingStatsDto(LocalDate.of(2026, 1, 31), 2L, 5L))));
+
+		assertThat(json).contains("\"day\":\"2026-01-31\"", "\"shippings\":2", "\"orderedQuantity\":5");
+	}
+
+	@Test
+	void dailyStatsRoundTripWithoutTheJavaTimeModule() throws Exception {
+		final var mapper = new JsonMapper();
+		final var stats = new DailyShippingStatsDto(LocalDate.of(2026, 1, 31), 2L, 5L);
+
+		assertThat(mapper.readValue(mapper.writeValueAsString(stats), DailyShippingStatsDto.class)).isEqualTo(stats);
+	}
+
+}
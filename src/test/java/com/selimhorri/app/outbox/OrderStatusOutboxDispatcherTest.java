@@ -0,0 +1,164 @@
+package com.selimhorri.app.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.selimhorri.app.client.OrderServiceClient;
+import com.selimhorri.app.config.shipping.ShippingProperties;
+import com.selimhorri.app.domain.OrderStatusOutbox;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.OrderStatus;
+import com.selimhorri.app.repository.OrderStatusOutboxRepository;
+import com.selimhorri.app.service.OrderStatusProjectionService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatusOutboxDispatcherTest {
+
+	@Mock
+	private OrderStatusOutboxRepository orderStatusOutboxRepository;
+	@Mock
+	private OrderServiceClient orderServiceClient;
+	@Mock
+	private OrderStatusProjectionService orderStatusProjectionService;
+	@Mock
+	private ThreadPoolTaskScheduler shippingTaskScheduler;
+
+	private ShippingProperties shippingProperties;
+	private OrderStatusOutboxDispatcher dispatcher;
+
+	@BeforeEach
+	void setUp() {
+		this.shippingProperties = new ShippingProperties();
+		this.dispatcher = new OrderStatusOutboxDispatcher(this.orderStatusOutboxRepository, this.orderServiceClient,
+				this.orderStatusProjectionService, this.shippingProperties, this.shippingTaskScheduler,
+				new SimpleMeterRegistry());
+	}
+
+	@Test
+	void aFirstAttemptIsDeliveredWithoutLookingTheOrderUpThenDeleted() {
+		final var claimToken = this.claim(entry(101, 1));
+		when(this.orderServiceClient.updateStatusAsync(101)).thenReturn(CompletableFuture.completedFuture(null));
+
+		this.dispatcher.dispatch();
+
+		verify(this.orderServiceClient, never()).findByIdFreshAsync(any());
+		verify(this.orderStatusOutboxRepository).deleteClaimed(List.of(101), claimToken.getValue());
+		verify(this.orderStatusProjectionService).refresh(List.of(101));
+	}
+
+	@Test
+	void theClaimLeasesTheDueEntriesForTheLeaseTimeout() {
+		final var claimToken = this.claim(entry(101, 1));
+		when(this.orderServiceClient.updateStatusAsync(101)).thenReturn(CompletableFuture.completedFuture(null));
+
+		this.dispatcher.dispatch();
+
+		final var now = ArgumentCaptor.forClass(Instant.class);
+		final var leaseUntil = ArgumentCaptor.forClass(Instant.class);
+		verify(this.orderStatusOutboxRepository).claim(eq(List.of(101)), eq(claimToken.getValue()), now.capture(),
+				leaseUntil.capture());
+		assertThat(leaseUntil.getValue())
+				.isEqualTo(now.getValue().plus(this.shippingProperties.getOutbox().getLeaseTimeout()));
+	}
+
+	@Test
+	void aFailedDeliveryIsRescheduledWithBackoffAndKept() {
+		final var claimToken = this.claim(entry(101, 3));
+		when(this.orderServiceClient.findByIdFreshAsync(101))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(order(101, OrderStatus.CREATED))));
+		when(this.orderServiceClient.updateStatusAsync(101))
+				.thenReturn(CompletableFuture.failedFuture(new ResourceAccessException("ORDER-SERVICE is down")));
+		final var before = Instant.now();
+
+		this.dispatcher.dispatch();
+
+		final var nextAttemptAt = ArgumentCaptor.forClass(Instant.class);
+		verify(this.orderStatusOutboxRepository).reschedule(eq(101), eq(claimToken.getValue()),
+				nextAttemptAt.capture(), eq("ORDER-SERVICE is down"));
+		// Third attempt: initial backoff doubled twice, plus up to 20% jitter
+		final var backoff = this.shippingProperties.getOutbox().getInitialBackoff().multipliedBy(4);
+		assertThat(nextAttemptAt.getValue()).isBetween(before.plus(backoff),
+				Instant.now().plus(backoff).plus(backoff.dividedBy(5)).plusMillis(1));
+		verify(this.orderStatusOutboxRepository, never()).deleteClaimed(any(), anyString());
+	}
+
+	@Test
+	void aRetryOfAChangeAlreadyAppliedIsSettledWithoutDeliveringItAgain() {
+		final var claimToken = this.claim(entry(101, 2));
+		when(this.orderServiceClient.findByIdFreshAsync(101))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(order(101, OrderStatus.ORDERED))));
+
+		this.dispatcher.dispatch();
+
+		verify(this.orderServiceClient).evict(101);
+		verify(this.orderServiceClient, never()).updateStatusAsync(any());
+		verify(this.orderStatusOutboxRepository).deleteClaimed(List.of(101), claimToken.getValue());
+		verify(this.orderStatusProjectionService).refresh(List.of(101));
+	}
+
+	@Test
+	void aChangeRefusedByOrderServiceIsDroppedAndNotRefreshed() {
+		final var claimToken = this.claim(entry(101, 1));
+		when(this.orderServiceClient.updateStatusAsync(101))
+				.thenReturn(CompletableFuture.failedFuture(new HttpClientErrorException(HttpStatus.CONFLICT)));
+
+		this.dispatcher.dispatch();
+
+		verify(this.orderStatusOutboxRepository).deleteClaimed(List.of(101), claimToken.getValue());
+		verify(this.orderStatusOutboxRepository, never()).reschedule(any(), any(), any(), any());
+		verify(this.orderStatusProjectionService).refresh(List.of());
+	}
+
+	/**
+	 * Makes the entry due and claimable, the token it is claimed with is captured. The entry
+	 * stands for the row as read back after the claim, its attempts count that claim.
+	 */
+	private ArgumentCaptor<String> claim(final OrderStatusOutbox entry) {
+		final var claimToken = ArgumentCaptor.forClass(String.class);
+		when(this.orderStatusOutboxRepository.findDueOrderIds(any(), any())).thenReturn(List.of(entry.getOrderId()));
+		when(this.orderStatusOutboxRepository.claim(eq(List.of(entry.getOrderId())), claimToken.capture(), any(),
+				any())).thenReturn(1);
+		when(this.orderStatusOutboxRepository.findByClaimToken(anyString())).thenAnswer(invocation -> {
+			entry.setClaimToken(invocation.getArgument(0));
+			return List.of(entry);
+		});
+		return claimToken;
+	}
+
+	private static OrderStatusOutbox entry(final int orderId, final int attempts) {
+		final var entry = OrderStatusOutbox.of(orderId);
+		entry.setAttempts(attempts);
+		return entry;
+	}
+
+	private static OrderDto order(final int orderId, final OrderStatus orderStatus) {
+		return OrderDto.builder()
+				.orderId(orderId)
+				.orderStatus(orderStatus.name())
+				.build();
+	}
+
+}
@@ -0,0 +1,227 @@
+package com.selimhorri.app.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import com.selimhorri.app.domain.OrderItem;
+import com.selimhorri.app.domain.OrderStatusProjection;
+import com.selimhorri.app.domain.projection.OrderItemStatusView;
+import com.selimhorri.app.domain.projection.OrderItemView;
+import com.selimhorri.app.dto.OrderItemQuery;
+
+/**
+ * Runs the queries against the schema the migrations build, rows of the seed data have
+ * order ids below 100.
+ */
+@DataJpaTest
+class OrderItemRepositoryTest {
+
+	private static final Instant CREATED = Instant.parse("2026-01-10T10:00:00Z");
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private OrderItemRepository orderItemRepository;
+
+	@Test
+	void findViewsPagesInOrderIdOrderStrictlyAfterTheCursor() {
+		this.persist(103, true, "ORDERED");
+		this.persist(101, true, "ORDERED");
+		this.persist(104, true, "ORDERED");
+		this.persist(102, true, "ORDERED");
+
+		assertThat(this.orderItemRepository.findViews(OrderItemQuery.builder().after(100).build(), 2))
+				.extracting(OrderItemView::getOrderId)
+				.containsExactly(101, 102);
+		assertThat(this.orderItemRepository.findViews(OrderItemQuery.builder().after(102).build(), 2))
+				.extracting(OrderItemView::getOrderId)
+				.containsExactly(103, 104);
+		assertThat(this.orderItemRepository.findViews(OrderItemQuery.builder().after(104).build(), 2))
+				.isEmpty();
+	}
+
+	@Test
+	void findViewsSkipsInactiveRowsUnlessAskedFor() {
+		this.persist(101, true, "ORDERED");
+		this.persist(102, false, "ORDERED");
+		this.persist(103, true, "ORDERED");
+
+		assertThat(this.orderItemRepository.findViews(OrderItemQuery.builder().after(100).build(), 10))
+				.extracting(OrderItemView::getOrderId)
+				.containsExactly(101, 103);
+		assertThat(this.orderItemRepository.findViews(
+						OrderItemQuery.builder().after(100).includeInactive(true).build(), 10))
+				.extracting(OrderItemView::getOrderId)
+				.containsExactly(101, 102, 103);
+	}
+
+	@Test
+	void findViewsFiltersByProduct() {
+		this.persistCreated(101, 1, CREATED);
+		this.persistCreated(102, 2, CREATED);
+		this.persistCreated(103, 2, CREATED);
+
+		assertThat(this.orderItemRepository.findViews(OrderItemQuery.builder().after(100).productId(2).build(), 10))
+				.extracting(OrderItemView::getOrderId)
+				.containsExactly(102, 103);
+	}
+
+	@Test
+	void findViewsFiltersByAHalfOpenCreationRange() {
+		this.persistCreated(101, 1, CREATED.minus(2, ChronoUnit.DAYS));
+		this.persistCreated(102, 1, CREATED.minus(1, ChronoUnit.DAYS));
+		this.persistCreated(103, 1, CREATED);
+
+		assertThat(this.orderItemRepository.findViews(OrderItemQuery.builder()
+						.after(100).createdAfter(CREATED.minus(1, ChronoUnit.DAYS)).build(), 10))
+				.extracting(OrderItemView::getOrderId)
+				.containsExactly(102, 103);
+		assertThat(this.orderItemRepository.findViews(OrderItemQuery.builder()
+						.after(100).createdBefore(CREATED).build(), 10))
+				.extracting(OrderItemView::getOrderId)
+				.containsExactly(101, 102);
+		assertThat(this.orderItemRepository.findViews(OrderItemQuery.builder()
+						.after(100).createdAfter(CREATED.minus(1, ChronoUnit.DAYS)).createdBefore(CREATED).build(), 10))
+				.extracting(OrderItemView::getOrderId)
+				.containsExactly(102);
+	}
+
+	@Test
+	void findViewsFiltersByUpdateTimeTakingTheCreationOfRowsNeverUpdated() {
+		this.persistCreated(101, 1, CREATED.minus(2, ChronoUnit.DAYS));
+		this.persistCreated(102, 1, CREATED.minus(2, ChronoUnit.DAYS));
+		this.persistCreated(103, 1, CREATED.minus(2, ChronoUnit.DAYS));
+		this.persistCreated(104, 1, CREATED);
+		this.updatedAt(101, CREATED.minus(2, ChronoUnit.DAYS));
+		this.updatedAt(102, CREATED);
+		this.updatedAt(103, null);
+		this.updatedAt(104, null);
+
+		assertThat(this.orderItemRepository.findViews(OrderItemQuery.builder()
+						.after(100).updatedSince(CREATED.minus(1, ChronoUnit.DAYS)).build(), 10))
+				.extracting(OrderItemView::getOrderId)
+				.containsExactly(102, 104);
+	}
+
+	@Test
+	void findOrderedViewsAfterPagesLikeTheFilteredRead() {
+		this.persist(102, true, "ORDERED");
+		this.persist(101, true, "ORDERED");
+		this.persist(103, true, "ORDERED");
+
+		assertThat(this.orderItemRepository.findOrderedViewsAfter(101, PageRequest.of(0, 10)))
+				.extracting(OrderItemView::getOrderId)
+				.containsExactly(102, 103);
+	}
+
+	@Test
+	void rowsOfOrdersNotProjectedYetAreReadWithoutAStatus() {
+		this.persist(101, true, "ORDERED");
+		this.persist(102, true, null);
+		this.persist(103, true, "CREATED");
+
+		assertThat(this.orderItemRepository.findViews(OrderItemQuery.builder().after(100).build(), 10))
+				.extracting(OrderItemStatusView::getOrderId, OrderItemStatusView::getOrderStatus)
+				.containsExactly(tuple(101, "ORDERED"), tuple(102, null));
+		assertThat(this.orderItemRepository.findOrderedViewsAfter(100, PageRequest.of(0, 10)))
+				.extracting(OrderItemView::getOrderId)
+				.containsExactly(101, 102);
+		assertThat(this.orderItemRepository.findOrderedViewByOrderId(102)).isPresent();
+		assertThat(this.orderItemRepository.findOrderedViewByOrderId(103)).isEmpty();
+	}
+
+	@Test
+	void insertAllIfAbsentOnlyInsertsTheRowsOfOrdersWithoutAShipping() {
+		this.persist(101, false, "ORDERED");
+		this.entityManager.clear();
+
+		assertThat(this.orderItemRepository.insertAllIfAbsent(List.of(newOrderItem(101), newOrderItem(102),
+				newOrderItem(103), newOrderItem(102))))
+				.containsExactly(0, 1, 1, 0);
+		assertThat(this.orderItemRepository.findById(101).orElseThrow())
+				.extracting(OrderItem::getProductId, OrderItem::isActive)
+				.containsExactly(1, false);
+		assertThat(this.orderItemRepository.findById(102).orElseThrow())
+				.extracting(OrderItem::getProductId, OrderItem::isActive, OrderItem::getVersion)
+				.containsExactly(2, true, 0);
+	}
+
+	@Test
+	void deactivateOnlyUpdatesARowStillActive() {
+		this.persist(101, true, "ORDERED");
+		this.entityManager.clear();
+
+		assertThat(this.orderItemRepository.deactivate(101, Instant.now())).isEqualTo(1);
+		assertThat(this.orderItemRepository.deactivate(101, Instant.now())).isZero();
+		this.entityManager.clear();
+
+		assertThat(this.orderItemRepository.findById(101).orElseThrow())
+				.extracting(OrderItem::isActive, OrderItem::getVersion)
+				.containsExactly(false, 1);
+	}
+
+	private static OrderItem newOrderItem(final int orderId) {
+		final var orderItem = OrderItem.builder()
+				.orderId(orderId)
+				.productId(2)
+				.orderedQuantity(1)
+				.isActive(true)
+				.build();
+		orderItem.setCreatedAt(Instant.now());
+		return orderItem;
+	}
+
+	private void persistCreated(final int orderId, final int productId, final Instant createdAt) {
+		final var orderItem = OrderItem.builder()
+				.orderId(orderId)
+				.productId(productId)
+				.orderedQuantity(1)
+				.isActive(true)
+				.build();
+		orderItem.setCreatedAt(createdAt);
+		this.entityManager.persist(orderItem);
+		this.entityManager.persist(new OrderStatusProjection(orderId, "ORDERED", Instant.now()));
+		this.entityManager.flush();
+	}
+
+	/**
+	 * Sets the last modification of a row behind the entity's back, {@code null} as left by an
+	 * insert that never went through the entity.
+	 */
+	private void updatedAt(final int orderId, final Instant updatedAt) {
+		final var update = updatedAt == null ?
+				this.entityManager.getEntityManager()
+						.createNativeQuery("UPDATE order_items SET updated_at = NULL WHERE order_id = :orderId") :
+				this.entityManager.getEntityManager()
+						.createNativeQuery("UPDATE order_items SET updated_at = :updatedAt WHERE order_id = :orderId")
+						.setParameter("updatedAt", Timestamp.from(updatedAt));
+		update.setParameter("orderId", orderId).executeUpdate();
+		this.entityManager.clear();
+	}
+
+	private OrderItem persist(final int orderId, final boolean active, final String orderStatus) {
+		final var orderItem = this.entityManager.persist(OrderItem.builder()
+				.orderId(orderId)
+				.productId(1)
+				.orderedQuantity(1)
+				.isActive(active)
+				.build());
+		if (orderStatus != null)
+			this.entityManager.persist(new OrderStatusProjection(orderId, orderStatus, Instant.now()));
+		this.entityManager.flush();
+		return orderItem;
+	}
+
+}
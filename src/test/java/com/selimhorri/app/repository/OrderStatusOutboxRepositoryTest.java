@@ -0,0 +1,98 @@
+package com.selimhorri.app.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import com.selimhorri.app.domain.OrderStatusOutbox;
+
+@DataJpaTest
+class OrderStatusOutboxRepositoryTest {
+
+	private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private OrderStatusOutboxRepository orderStatusOutboxRepository;
+
+	@Test
+	void onlyDueEntriesAreClaimedAndLeasedUntilTheLeaseRunsOut() {
+		this.persist(101, NOW.minusSeconds(10));
+		this.persist(102, NOW.plusSeconds(10));
+
+		assertThat(this.orderStatusOutboxRepository.findDueOrderIds(NOW, PageRequest.of(0, 10)))
+				.containsExactly(101);
+		assertThat(this.orderStatusOutboxRepository.claim(List.of(101, 102), "first", NOW, NOW.plusSeconds(30)))
+				.isEqualTo(1);
+		this.entityManager.clear();
+
+		assertThat(this.orderStatusOutboxRepository.findByClaimToken("first"))
+				.extracting(OrderStatusOutbox::getOrderId)
+				.containsExactly(101);
+		assertThat(this.orderStatusOutboxRepository.findDueOrderIds(NOW, PageRequest.of(0, 10))).isEmpty();
+		assertThat(this.orderStatusOutboxRepository.findDueOrderIds(NOW.plusSeconds(31), PageRequest.of(0, 10)))
+				.containsExactly(102, 101);
+	}
+
+	@Test
+	void anEntryClaimedAgainAfterItsLeaseRanOutIsNotSettledByTheFirstClaim() {
+		this.persist(101, NOW.minusSeconds(10));
+		this.orderStatusOutboxRepository.claim(List.of(101), "first", NOW, NOW.plusSeconds(30));
+		this.orderStatusOutboxRepository.claim(List.of(101), "second", NOW.plusSeconds(31), NOW.plusSeconds(61));
+
+		assertThat(this.orderStatusOutboxRepository.deleteClaimed(List.of(101), "first")).isZero();
+		assertThat(this.orderStatusOutboxRepository.reschedule(101, "first", NOW, "late")).isZero();
+		assertThat(this.orderStatusOutboxRepository.deleteClaimed(List.of(101), "second")).isEqualTo(1);
+		this.entityManager.clear();
+
+		assertThat(this.orderStatusOutboxRepository.findById(101)).isEmpty();
+	}
+
+	@Test
+	void aClaimAfterTheLeaseRanOutCountsAsAnotherAttempt() {
+		this.persist(101, NOW.minusSeconds(10));
+		this.orderStatusOutboxRepository.claim(List.of(101), "first", NOW, NOW.plusSeconds(30));
+		this.orderStatusOutboxRepository.claim(List.of(101), "second", NOW.plusSeconds(31), NOW.plusSeconds(61));
+		this.entityManager.clear();
+
+		assertThat(this.orderStatusOutboxRepository.findByClaimToken("second"))
+				.extracting(OrderStatusOutbox::getAttempts)
+				.containsExactly(2);
+	}
+
+	@Test
+	void aRescheduledEntryIsReleasedWithItsAttemptCounted() {
+		this.persist(101, NOW.minusSeconds(10));
+		this.orderStatusOutboxRepository.claim(List.of(101), "first", NOW, NOW.plusSeconds(30));
+
+		assertThat(this.orderStatusOutboxRepository.reschedule(101, "first", NOW.plusSeconds(5), "timeout"))
+				.isEqualTo(1);
+		this.entityManager.clear();
+
+		final var entry = this.orderStatusOutboxRepository.findById(101).orElseThrow();
+		assertThat(entry.getAttempts()).isEqualTo(1);
+		assertThat(entry.getClaimToken()).isNull();
+		assertThat(entry.getLastError()).isEqualTo("timeout");
+		assertThat(entry.getNextAttemptAt()).isEqualTo(NOW.plusSeconds(5));
+	}
+
+	private void persist(final int orderId, final Instant nextAttemptAt) {
+		this.entityManager.persist(OrderStatusOutbox.builder()
+				.orderId(orderId)
+				.createdAt(NOW.minusSeconds(60))
+				.nextAttemptAt(nextAttemptAt)
+				.build());
+		this.entityManager.flush();
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.selimhorri.app.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.selimhorri.app.domain.OrderStatusProjection;
+
+@DataJpaTest
+class OrderStatusProjectionRepositoryTest {
+
+	private static final Instant CHANGED_AT = Instant.parse("2026-01-01T10:00:00Z");
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private OrderStatusProjectionRepository orderStatusProjectionRepository;
+
+	@Test
+	void aLaterChangeIsRecorded() {
+		this.persist(101, "CREATED", CHANGED_AT);
+
+		assertThat(this.orderStatusProjectionRepository.updateUnlessNewer(101, "ORDERED", CHANGED_AT.plusSeconds(1)))
+				.isEqualTo(1);
+		this.entityManager.clear();
+
+		assertThat(this.orderStatusProjectionRepository.findById(101))
+				.map(OrderStatusProjection::getOrderStatus)
+				.contains("ORDERED");
+	}
+
+	@Test
+	void anEarlierChangeArrivingLateIsIgnored() {
+		this.persist(101, "ORDERED", CHANGED_AT);
+
+		assertThat(this.orderStatusProjectionRepository.updateUnlessNewer(101, "CREATED", CHANGED_AT.minusSeconds(1)))
+				.isZero();
+		this.entityManager.clear();
+
+		assertThat(this.orderStatusProjectionRepository.findById(101))
+				.map(OrderStatusProjection::getOrderStatus)
+				.contains("ORDERED");
+	}
+
+	@Test
+	void anOrderNotProjectedYetIsNotUpdated() {
+		assertThat(this.orderStatusProjectionRepository.updateUnlessNewer(101, "ORDERED", CHANGED_AT)).isZero();
+	}
+
+	private void persist(final int orderId, final String orderStatus, final Instant updatedAt) {
+		this.entityManager.persist(new OrderStatusProjection(orderId, orderStatus, updatedAt));
+		this.entityManager.flush();
+	}
+
+}
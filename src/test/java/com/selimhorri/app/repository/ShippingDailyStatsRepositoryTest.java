@@ -0,0 +1,68 @@
+package com.selimhorri.app.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.selimhorri.app.domain.ShippingDailyStats;
+import com.selimhorri.app.dto.DailyShippingStatsDto;
+
+/**
+ * Days far from the seed data, so only the rows persisted here are summed.
+ */
+@DataJpaTest
+class ShippingDailyStatsRepositoryTest {
+
+	private static final LocalDate DAY = LocalDate.of(2099, 1, 1);
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ShippingDailyStatsRepository shippingDailyStatsRepository;
+
+	@Test
+	void countersAreAddedToInPlace() {
+		this.persist(100, DAY);
+
+		assertThat(this.shippingDailyStatsRepository.add(100, DAY, 1, 3)).isEqualTo(1);
+		assertThat(this.shippingDailyStatsRepository.add(100, DAY, 1, 2)).isEqualTo(1);
+		assertThat(this.shippingDailyStatsRepository.add(100, DAY, -1, -3)).isEqualTo(1);
+		this.entityManager.clear();
+
+		final var row = this.shippingDailyStatsRepository.findById(new ShippingDailyStats.Key(100, DAY)).orElseThrow();
+		assertThat(row.getShippings()).isEqualTo(1);
+		assertThat(row.getOrderedQuantity()).isEqualTo(2);
+	}
+
+	@Test
+	void aMissingRowIsNotAddedTo() {
+		assertThat(this.shippingDailyStatsRepository.add(100, DAY, 1, 1)).isZero();
+	}
+
+	@Test
+	void daysAreSummedOverProductsAndEmptyDaysLeftOut() {
+		this.persist(100, DAY);
+		this.persist(101, DAY);
+		this.persist(100, DAY.plusDays(1));
+		this.shippingDailyStatsRepository.add(100, DAY, 2, 3);
+		this.shippingDailyStatsRepository.add(101, DAY, 1, 4);
+
+		assertThat(this.shippingDailyStatsRepository.sumByDay(DAY, DAY.plusDays(1)))
+				.containsExactly(new DailyShippingStatsDto(DAY, 3L, 7L));
+	}
+
+	private void persist(final int productId, final LocalDate statsDay) {
+		this.entityManager.persist(ShippingDailyStats.builder()
+				.productId(productId)
+				.statsDay(statsDay)
+				.build());
+		this.entityManager.flush();
+	}
+
+}
@@ -0,0 +1,239 @@
+package com.selimhorri.app.resource;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncEvent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.config.mapper.MapperConfig;
+import com.selimhorri.app.config.shipping.ShippingProperties;
+import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.dto.response.ResourceVersion;
+import com.selimhorri.app.dto.response.Versioned;
+import com.selimhorri.app.exception.ApiExceptionHandler;
+import com.selimhorri.app.service.OrderItemService;
+import com.selimhorri.app.service.ShippingStatsService;
+
+/**
+ * Runs the resource with the application's mapper and exception handler on a small request
+ * executor, without a servlet container.
+ */
+class OrderItemResourceTest {
+
+	private static final Instant LAST_MODIFIED = Instant.parse("2026-01-01T10:00:00Z");
+	private static final ResourceVersion VERSION = ResourceVersion.builder()
+			.etag("\"v1\"")
+			.lastModified(LAST_MODIFIED)
+			.build();
+
+	private OrderItemService orderItemService;
+	private ShippingProperties shippingProperties;
+	private ThreadPoolTaskExecutor shippingRequestExecutor;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		this.orderItemService = mock(OrderItemService.class);
+		this.shippingProperties = new ShippingProperties();
+		this.shippingRequestExecutor = new ThreadPoolTaskExecutor();
+		this.shippingRequestExecutor.setCorePoolSize(1);
+		this.shippingRequestExecutor.setMaxPoolSize(1);
+		this.shippingRequestExecutor.setQueueCapacity(0);
+		this.shippingRequestExecutor.initialize();
+		final ObjectMapper objectMapper = new MapperConfig().objectMapperBean();
+		this.mockMvc = MockMvcBuilders.standaloneSetup(new OrderItemResource(this.orderItemService, objectMapper,
+						this.shippingRequestExecutor, this.shippingProperties, mock(ShippingStatsService.class)))
+				.setControllerAdvice(new ApiExceptionHandler())
+				.setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+				.build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		this.shippingRequestExecutor.shutdown();
+	}
+
+	/*
+	 * Conditional GET
+	 */
+
+	@Test
+	void aShippingIsAnsweredWithItsValidators() throws Exception {
+		this.currentVersion(VERSION);
+
+		this.perform(get("/api/shippings/101"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"v1\""))
+				.andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED.toEpochMilli()))
+				.andExpect(jsonPath("$.orderId").value(101));
+	}
+
+	@Test
+	void aMatchingEntityTagIsAnsweredNotModifiedWithoutReadingTheShipping() throws Exception {
+		this.currentVersion(VERSION);
+
+		this.perform(get("/api/shippings/101").header(HttpHeaders.IF_NONE_MATCH, "\"v0\", \"v1\""))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"v1\""));
+		verify(this.orderItemService, never()).findVersionedById(anyInt(), anyBoolean());
+	}
+
+	@Test
+	void aWeakEntityTagMatchesTheStrongOne() throws Exception {
+		this.currentVersion(VERSION);
+
+		this.perform(get("/api/shippings/101").header(HttpHeaders.IF_NONE_MATCH, "W/\"v1\""))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void ifNoneMatchTakesPrecedenceOverIfModifiedSince() throws Exception {
+		this.currentVersion(VERSION);
+
+		this.perform(get("/api/shippings/101")
+						.header(HttpHeaders.IF_NONE_MATCH, "\"v0\"")
+						.header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(LAST_MODIFIED.plusSeconds(60))))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"v1\""));
+	}
+
+	@Test
+	void ifModifiedSinceAloneIsAnsweredByTheLastModification() throws Exception {
+		this.currentVersion(VERSION);
+
+		this.perform(get("/api/shippings/101").header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(LAST_MODIFIED)))
+				.andExpect(status().isNotModified());
+		this.perform(get("/api/shippings/101")
+						.header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(LAST_MODIFIED.minusSeconds(60))))
+				.andExpect(status().isOk());
+	}
+
+	/*
+	 * Sparse fieldsets
+	 */
+
+	@Test
+	void anUnknownExpansionIsABadRequest() throws Exception {
+		this.mockMvc.perform(get("/api/shippings").param("expand", "product,customer"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.msg").value("#### Cannot expand customer, expected product or order! ####"));
+		verifyNoInteractions(this.orderItemService);
+	}
+
+	@Test
+	void anUnknownFieldIsABadRequest() throws Exception {
+		this.mockMvc.perform(get("/api/shippings").param("fields", "orderId, price"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.msg").value(startsWith("#### Unknown field price, expected one of ")));
+		verifyNoInteractions(this.orderItemService);
+	}
+
+	/*
+	 * Saturation
+	 */
+
+	@Test
+	void aRequestFindingTheExecutorSaturatedIsAnsweredServiceUnavailable() throws Exception {
+		final var release = this.blockedLookups();
+		try {
+			this.mockMvc.perform(get("/api/shippings/101"))
+					.andExpect(request().asyncStarted());
+
+			this.mockMvc.perform(get("/api/shippings/101"))
+					.andExpect(status().isServiceUnavailable())
+					.andExpect(jsonPath("$.msg").value("#### Too many concurrent requests, try again later! ####"));
+		}
+		finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	void aRequestOutlivingItsTimeoutIsAnsweredServiceUnavailable() throws Exception {
+		final var release = this.blockedLookups();
+		try {
+			final var result = this.mockMvc.perform(get("/api/shippings/101"))
+					.andExpect(request().asyncStarted())
+					.andReturn();
+			final var asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+			for (final var listener : asyncContext.getListeners())
+				listener.onTimeout(new AsyncEvent(asyncContext));
+
+			this.mockMvc.perform(asyncDispatch(result))
+					.andExpect(status().isServiceUnavailable());
+		}
+		finally {
+			release.countDown();
+		}
+	}
+
+	/**
+	 * Holds every lookup of shipping 101 on the executor until the returned latch is released.
+	 */
+	private CountDownLatch blockedLookups() {
+		final var release = new CountDownLatch(1);
+		when(this.orderItemService.findVersion(101, false)).thenAnswer(invocation -> {
+			release.await(10, TimeUnit.SECONDS);
+			return Optional.of(VERSION);
+		});
+		return release;
+	}
+
+	/**
+	 * Serves shipping 101 at the given version.
+	 */
+	private void currentVersion(final ResourceVersion version) {
+		when(this.orderItemService.findVersion(101, false)).thenReturn(Optional.of(version));
+		when(this.orderItemService.findVersionedById(101, false)).thenReturn(Versioned.<OrderItemDto>builder()
+				.body(OrderItemDto.builder().orderId(101).productId(1).orderedQuantity(1).build())
+				.version(version)
+				.build());
+	}
+
+	/**
+	 * Performs a request answered asynchronously, through to its dispatched result.
+	 */
+	private ResultActions perform(final RequestBuilder requestBuilder) throws Exception {
+		final var result = this.mockMvc.perform(requestBuilder)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return this.mockMvc.perform(asyncDispatch(result));
+	}
+
+	private static String httpDate(final Instant instant) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atZone(ZoneOffset.UTC));
+	}
+
+}
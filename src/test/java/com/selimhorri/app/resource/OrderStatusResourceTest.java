@@ -0,0 +1,63 @@
+package com.selimhorri.app.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.selimhorri.app.config.mapper.MapperConfig;
+import com.selimhorri.app.dto.OrderStatusChangeDto;
+import com.selimhorri.app.service.OrderStatusProjectionService;
+
+/**
+ * Runs the resource with the application's mapper, without a servlet container.
+ */
+class OrderStatusResourceTest {
+
+	private OrderStatusProjectionService orderStatusProjectionService;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		this.orderStatusProjectionService = mock(OrderStatusProjectionService.class);
+		this.mockMvc = MockMvcBuilders.standaloneSetup(new OrderStatusResource(this.orderStatusProjectionService))
+				.setMessageConverters(new MappingJackson2HttpMessageConverter(new MapperConfig().objectMapperBean()))
+				.build();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void changesAreReadWithTheTimeTheyTookEffect() throws Exception {
+		when(this.orderStatusProjectionService.apply(anyList())).thenReturn(1);
+
+		this.mockMvc.perform(post("/api/order-statuses")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[{\"orderId\":101,\"orderStatus\":\"ORDERED\",\"changedAt\":\"2026-01-01T10:00:00Z\"}]"))
+				.andExpect(status().isOk())
+				.andExpect(content().string("1"));
+
+		final ArgumentCaptor<List<OrderStatusChangeDto>> changes = ArgumentCaptor.forClass(List.class);
+		verify(this.orderStatusProjectionService).apply(changes.capture());
+		assertThat(changes.getValue()).containsExactly(OrderStatusChangeDto.builder()
+				.orderId(101)
+				.orderStatus("ORDERED")
+				.changedAt(Instant.parse("2026-01-01T10:00:00Z"))
+				.build());
+	}
+
+}
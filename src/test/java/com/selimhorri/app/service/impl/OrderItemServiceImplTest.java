@@ -0,0 +1,442 @@
+package com.selimhorri.app.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.selimhorri.app.client.OrderServiceClient;
+import com.selimhorri.app.client.ProductServiceClient;
+import com.selimhorri.app.config.shipping.ShippingProperties;
+import com.selimhorri.app.domain.OrderItem;
+import com.selimhorri.app.domain.OrderStatusOutbox;
+import com.selimhorri.app.domain.projection.OrderItemStatusView;
+import com.selimhorri.app.domain.projection.OrderItemView;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.OrderItemBatchResultDto;
+import com.selimhorri.app.dto.OrderItemDto;
+import com.selimhorri.app.dto.OrderItemExpand;
+import com.selimhorri.app.dto.OrderItemLookupResultDto;
+import com.selimhorri.app.dto.OrderItemQuery;
+import com.selimhorri.app.dto.OrderStatus;
+import com.selimhorri.app.dto.ProductDto;
+import com.selimhorri.app.exception.wrapper.OrderItemNotFoundException;
+import com.selimhorri.app.helper.OrderItemMappingHelper;
+import com.selimhorri.app.metrics.ShippingMetrics;
+import com.selimhorri.app.repository.OrderItemRepository;
+import com.selimhorri.app.service.OrderItemEnrichmentService;
+import com.selimhorri.app.service.ShippingStatsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class OrderItemServiceImplTest {
+
+	private static final ProjectionFactory PROJECTION_FACTORY = new SpelAwareProxyProjectionFactory();
+
+	@Mock
+	private OrderItemRepository orderItemRepository;
+	@Mock
+	private ProductServiceClient productServiceClient;
+	@Mock
+	private OrderServiceClient orderServiceClient;
+	@Mock
+	private OrderItemEnrichmentService orderItemEnrichmentService;
+	@Mock
+	private EntityManager entityManager;
+	@Mock
+	private PlatformTransactionManager transactionManager;
+	@Mock
+	private ShippingStatsService shippingStatsService;
+
+	private ShippingProperties shippingProperties;
+	private OrderItemServiceImpl orderItemService;
+
+	@BeforeEach
+	void setUp() {
+		this.shippingProperties = new ShippingProperties();
+		this.orderItemService = new OrderItemServiceImpl(
+				this.orderItemRepository,
+				this.productServiceClient,
+				this.orderServiceClient,
+				this.orderItemEnrichmentService,
+				this.shippingProperties,
+				this.entityManager,
+				new ShippingMetrics(new SimpleMeterRegistry()),
+				this.transactionManager,
+				this.shippingStatsService);
+	}
+
+	/*
+	 * Keyset pagination
+	 */
+
+	@Test
+	void findPageReadsOneRowMoreAndPointsTheCursorAtTheLastRowServed() {
+		this.enrichAsIs();
+		when(this.orderItemRepository.findViews(any(), eq(3)))
+				.thenReturn(List.of(view(101), view(102), view(103)));
+
+		final var page = this.orderItemService.findPage(OrderItemQuery.builder().limit(2).build());
+
+		assertThat(page.getCollection()).extracting(OrderItemDto::getOrderId).containsExactly(101, 102);
+		assertThat(page.getNextCursor()).isEqualTo("102");
+	}
+
+	@Test
+	void findPageHasNoCursorOnTheLastPage() {
+		this.enrichAsIs();
+		when(this.orderItemRepository.findViews(any(), eq(3)))
+				.thenReturn(List.of(view(101), view(102)));
+
+		final var page = this.orderItemService.findPage(OrderItemQuery.builder().after(100).limit(2).build());
+
+		assertThat(page.getCollection()).extracting(OrderItemDto::getOrderId).containsExactly(101, 102);
+		assertThat(page.getNextCursor()).isNull();
+	}
+
+	@Test
+	void findPageCapsTheLimitAndPassesTheCursorOn() {
+		this.enrichAsIs();
+		final var query = OrderItemQuery.builder().after(100).limit(10_000).build();
+		when(this.orderItemRepository.findViews(query, this.shippingProperties.getPage().getMaxLimit() + 1))
+				.thenReturn(List.of());
+
+		assertThat(this.orderItemService.findPage(query).getCollection()).isEmpty();
+		verify(this.orderItemRepository).findViews(query, this.shippingProperties.getPage().getMaxLimit() + 1);
+	}
+
+	@Test
+	void findPageRejectsANonPositiveLimit() {
+		assertThatThrownBy(() -> this.orderItemService.findPage(OrderItemQuery.builder().limit(0).build()))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	/*
+	 * Orders the status projection does not know yet
+	 */
+
+	@Test
+	void aPageWithoutOrdersServesUnprojectedRowsOnlyOnceOrderServiceAnswersOrdered() {
+		this.enrichAsIs();
+		when(this.orderItemRepository.findViews(any(), eq(51)))
+				.thenReturn(List.of(view(101), view(102, null), view(103, null), view(104, null)));
+		when(this.orderServiceClient.findAllByIds(Set.of(102, 103, 104)))
+				.thenReturn(Map.of(102, order(102, OrderStatus.ORDERED), 103, order(103, OrderStatus.CREATED)));
+
+		final var page = this.orderItemService.findPage(OrderItemQuery.builder()
+				.expand(EnumSet.of(OrderItemExpand.PRODUCT))
+				.build());
+
+		assertThat(page.getCollection()).extracting(OrderItemDto::getOrderId).containsExactly(101, 102);
+	}
+
+	@Test
+	void aPageWithOrdersLeavesUnprojectedRowsToEnrichment() {
+		this.enrichAsIs();
+		when(this.orderItemRepository.findViews(any(), eq(51))).thenReturn(List.of(view(101, null)));
+
+		final var page = this.orderItemService.findPage(OrderItemQuery.builder().build());
+
+		assertThat(page.getCollection()).extracting(OrderItemDto::getOrderId).containsExactly(101);
+		verify(this.orderServiceClient, never()).findAllByIds(any());
+	}
+
+	@Test
+	void aLookupLeavesUnprojectedRowsToEnrichmentAndFiltersOtherStatuses() {
+		this.enrichAsIs();
+		when(this.orderItemRepository.findStatusViewsByOrderIdIn(Set.of(101, 102)))
+				.thenReturn(List.of(view(101, null), view(102, OrderStatus.CREATED.name())));
+
+		final var results = this.orderItemService.findAllByIds(List.of(101, 102), false);
+
+		assertThat(results).extracting(OrderItemLookupResultDto::getStatus).containsExactly(
+				OrderItemLookupResultDto.Status.FOUND, OrderItemLookupResultDto.Status.FILTERED);
+	}
+
+	/*
+	 * Validators
+	 */
+
+	@Test
+	void aPageIsTaggedWithTheVersionThePreconditionIsCheckedAgainstAndNoLastModified() {
+		this.enrichAsIs();
+		this.cacheProductAndOrderOf(view(101));
+		when(this.orderItemRepository.findViews(any(), eq(51))).thenReturn(List.of(view(101)));
+		final var query = OrderItemQuery.builder().build();
+
+		final var page = this.orderItemService.findVersionedPage(query);
+
+		assertThat(page.getVersion()).isNotNull();
+		assertThat(page.getVersion().getLastModified()).isNull();
+		assertThat(this.orderItemService.findPageVersion(query)).contains(page.getVersion());
+	}
+
+	@Test
+	void aPageIsVersionedByTheRowsItWasReadFrom() {
+		this.enrichAsIs();
+		when(this.orderItemRepository.findViews(any(), eq(51)))
+				.thenReturn(List.of(view(101)))
+				.thenReturn(List.of(view(101), view(102)));
+
+		final var first = this.orderItemService.findVersionedPage(OrderItemQuery.builder().build());
+		final var second = this.orderItemService.findVersionedPage(OrderItemQuery.builder().build());
+
+		assertThat(first.getBody().getCollection()).hasSize(1);
+		assertThat(second.getBody().getCollection()).hasSize(2);
+		assertThat(first.getVersion().getEtag()).isNotEqualTo(second.getVersion().getEtag());
+	}
+
+	@Test
+	void aShippingIsTaggedWithTheVersionOfTheRowItWasReadFrom() {
+		final var row = view(101);
+		when(this.orderItemRepository.findOrderedViewByOrderId(101)).thenReturn(Optional.of(row));
+		when(this.productServiceClient.findByIdAsync(1))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(product(1, 5))));
+		when(this.orderServiceClient.findByIdAsync(101))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(order(101, OrderStatus.ORDERED))));
+		when(this.productServiceClient.cachedFingerprint(1)).thenReturn(OptionalInt.of(product(1, 5).hashCode()));
+		when(this.orderServiceClient.cachedFingerprint(101))
+				.thenReturn(OptionalInt.of(order(101, OrderStatus.ORDERED).hashCode()));
+
+		final var shipping = this.orderItemService.findVersionedById(101, false);
+
+		assertThat(shipping.getVersion().getLastModified()).isEqualTo(row.getUpdatedAt());
+		assertThat(this.orderItemService.findVersion(101, false)).contains(shipping.getVersion());
+	}
+
+	/*
+	 * Write validation
+	 */
+
+	@Test
+	void saveIsRejectedWhenTheOrderCannotBeLookedUpFresh() {
+		when(this.orderServiceClient.findByIdFreshAsync(7))
+				.thenReturn(CompletableFuture.failedFuture(new ResourceAccessException("ORDER-SERVICE is down")));
+		when(this.productServiceClient.findByIdFreshAsync(1))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(product(1, 10))));
+
+		assertThatThrownBy(() -> this.orderItemService.save(orderItemDto(7, 1, 1)))
+				.isInstanceOf(OrderItemNotFoundException.class);
+		verify(this.orderItemRepository, never()).insertAllIfAbsent(any());
+	}
+
+	@Test
+	void saveChecksStockAgainstAFreshProduct() {
+		when(this.orderServiceClient.findByIdFreshAsync(7))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(order(7, OrderStatus.CREATED))));
+		when(this.productServiceClient.findByIdFreshAsync(1))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(product(1, 2))));
+
+		assertThatThrownBy(() -> this.orderItemService.save(orderItemDto(7, 1, 3)))
+				.isInstanceOf(IllegalArgumentException.class);
+		verify(this.orderItemRepository, never()).insertAllIfAbsent(any());
+	}
+
+	@Test
+	void saveAllRejectsRowsWhoseOrderOrProductCannotBeLookedUpFresh() {
+		when(this.orderServiceClient.findAllByIdsFreshAsync(Set.of(7, 8)))
+				.thenReturn(CompletableFuture.completedFuture(Map.of(7, order(7, OrderStatus.CREATED))));
+		when(this.productServiceClient.findAllByIdsFreshAsync(Set.of(1)))
+				.thenReturn(CompletableFuture.completedFuture(Map.of()));
+
+		final var results = this.orderItemService.saveAll(List.of(orderItemDto(7, 1, 1), orderItemDto(8, 1, 1)));
+
+		assertThat(results).noneMatch(OrderItemBatchResultDto::isSuccess);
+		verify(this.entityManager, never()).persist(any());
+	}
+
+	/*
+	 * Writes racing other writes
+	 */
+
+	@Test
+	void saveRejectsAnOrderThatAlreadyHasAShipping() {
+		this.createdOrderAndProduct(7);
+		when(this.orderItemRepository.insertAllIfAbsent(any())).thenReturn(new int[] { 0 });
+
+		assertThatThrownBy(() -> this.orderItemService.save(orderItemDto(7, 1, 1)))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Shipping for order 7 already exists");
+		verify(this.entityManager, never()).persist(any());
+		verify(this.shippingStatsService).addToSummary(List.of());
+	}
+
+	@Test
+	void saveRetriesAnInsertThatLostADeadlockOnce() {
+		this.createdOrderAndProduct(7);
+		when(this.orderItemRepository.insertAllIfAbsent(any()))
+				.thenThrow(new CannotAcquireLockException("Deadlock found when trying to get lock"))
+				.thenReturn(new int[] { 1 });
+
+		assertThat(this.orderItemService.save(orderItemDto(7, 1, 1)).getOrderId()).isEqualTo(7);
+		verify(this.orderItemRepository, times(2)).insertAllIfAbsent(any());
+		verify(this.entityManager).persist(any(OrderStatusOutbox.class));
+	}
+
+	@Test
+	void saveTellsAnInsertThatLostTheRaceForItsOrderTwiceAsADuplicate() {
+		this.createdOrderAndProduct(7);
+		when(this.orderItemRepository.insertAllIfAbsent(any()))
+				.thenThrow(new DataIntegrityViolationException("Duplicate entry '7' for key 'PRIMARY'"));
+
+		assertThatThrownBy(() -> this.orderItemService.save(orderItemDto(7, 1, 1)))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Shipping for order 7 already exists");
+		verify(this.orderItemRepository, times(2)).insertAllIfAbsent(any());
+	}
+
+	@Test
+	void saveAllRejectsOnlyTheRowsTheInsertFoundAShippingFor() {
+		this.createdOrdersAndProduct(7, 8, 9);
+		when(this.orderItemRepository.insertAllIfAbsent(any())).thenReturn(new int[] { 1, 0, 1 });
+
+		final var results = this.orderItemService.saveAll(List.of(orderItemDto(7, 1, 1), orderItemDto(8, 1, 1),
+				orderItemDto(9, 1, 1)));
+
+		assertThat(results).extracting(OrderItemBatchResultDto::isSuccess).containsExactly(true, false, true);
+		assertThat(results.get(1).getError()).isEqualTo("Shipping for order 8 already exists");
+		final var persisted = ArgumentCaptor.forClass(OrderStatusOutbox.class);
+		verify(this.entityManager, times(2)).persist(persisted.capture());
+		assertThat(persisted.getAllValues()).extracting(OrderStatusOutbox::getOrderId).containsExactly(7, 9);
+		final ArgumentCaptor<Collection<OrderItem>> counted = ArgumentCaptor.forClass(Collection.class);
+		verify(this.shippingStatsService).addToSummary(counted.capture());
+		assertThat(counted.getValue()).extracting(OrderItem::getOrderId).containsExactly(7, 9);
+	}
+
+	@Test
+	void saveAllRetriesABatchThatLostAPrimaryKeyRaceAndRejectsJustTheDuplicate() {
+		this.createdOrdersAndProduct(7, 8, 9);
+		when(this.orderItemRepository.insertAllIfAbsent(any()))
+				.thenThrow(new DataIntegrityViolationException("Duplicate entry '8' for key 'PRIMARY'"))
+				.thenReturn(new int[] { 1, 0, 1 });
+
+		final var results = this.orderItemService.saveAll(List.of(orderItemDto(7, 1, 1), orderItemDto(8, 1, 1),
+				orderItemDto(9, 1, 1)));
+
+		assertThat(results).extracting(OrderItemBatchResultDto::isSuccess).containsExactly(true, false, true);
+		verify(this.orderItemRepository, times(2)).insertAllIfAbsent(any());
+	}
+
+	@Test
+	void deleteByIdOfAShippingDeactivatedConcurrentlyIsNotFound() {
+		when(this.orderItemRepository.findActiveViewByOrderId(101))
+				.thenReturn(Optional.<OrderItemView>of(view(101)));
+		when(this.orderServiceClient.findByIdFresh(101)).thenReturn(Optional.of(order(101, OrderStatus.ORDERED)));
+		when(this.orderItemRepository.deactivate(eq(101), any())).thenReturn(0);
+
+		assertThatThrownBy(() -> this.orderItemService.deleteById(101))
+				.isInstanceOf(OrderItemNotFoundException.class);
+		verify(this.shippingStatsService, never()).removeFromSummary(any());
+	}
+
+	private void createdOrderAndProduct(final int orderId) {
+		when(this.orderServiceClient.findByIdFreshAsync(orderId))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(order(orderId, OrderStatus.CREATED))));
+		when(this.productServiceClient.findByIdFreshAsync(1))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(product(1, 10))));
+	}
+
+	private void createdOrdersAndProduct(final Integer... orderIds) {
+		final Map<Integer, OrderDto> orders = new HashMap<>();
+		for (final var orderId : orderIds)
+			orders.put(orderId, order(orderId, OrderStatus.CREATED));
+		when(this.orderServiceClient.findAllByIdsFreshAsync(Set.of(orderIds)))
+				.thenReturn(CompletableFuture.completedFuture(orders));
+		when(this.productServiceClient.findAllByIdsFreshAsync(Set.of(1)))
+				.thenReturn(CompletableFuture.completedFuture(Map.of(1, product(1, 10))));
+	}
+
+	private void enrichAsIs() {
+		when(this.orderItemEnrichmentService.enrich(anyList(), anySet(), anyBoolean()))
+				.thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	/**
+	 * Caches what enriching the row as is serves.
+	 */
+	private void cacheProductAndOrderOf(final OrderItemView row) {
+		final var orderItemDto = OrderItemMappingHelper.map(row);
+		when(this.productServiceClient.cachedFingerprint(row.getProductId()))
+				.thenReturn(OptionalInt.of(orderItemDto.getProductDto().hashCode()));
+		when(this.orderServiceClient.cachedFingerprint(row.getOrderId()))
+				.thenReturn(OptionalInt.of(orderItemDto.getOrderDto().hashCode()));
+	}
+
+	static OrderItemDto orderItemDto(final int orderId, final int productId, final int orderedQuantity) {
+		return OrderItemDto.builder()
+				.orderId(orderId)
+				.productId(productId)
+				.orderedQuantity(orderedQuantity)
+				.build();
+	}
+
+	static OrderDto order(final int orderId, final OrderStatus orderStatus) {
+		return OrderDto.builder()
+				.orderId(orderId)
+				.orderStatus(orderStatus.name())
+				.build();
+	}
+
+	static ProductDto product(final int productId, final int quantity) {
+		return ProductDto.builder()
+				.productId(productId)
+				.productTitle("Product " + productId)
+				.quantity(quantity)
+				.build();
+	}
+
+	static OrderItemStatusView view(final int orderId) {
+		return view(orderId, OrderStatus.ORDERED.name());
+	}
+
+	/**
+	 * @param orderStatus status projected for the order, null when not known yet
+	 */
+	static OrderItemStatusView view(final int orderId, final String orderStatus) {
+		final Map<String, Object> values = new HashMap<>();
+		values.put("orderId", orderId);
+		values.put("productId", 1);
+		values.put("orderedQuantity", 1);
+		values.put("active", true);
+		values.put("version", 0);
+		values.put("createdAt", Instant.parse("2026-01-01T00:00:00Z"));
+		values.put("updatedAt", Instant.parse("2026-01-01T00:00:00Z"));
+		values.put("orderStatus", orderStatus);
+		return PROJECTION_FACTORY.createProjection(OrderItemStatusView.class, values);
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.selimhorri.app.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.selimhorri.app.client.OrderServiceClient;
+import com.selimhorri.app.config.shipping.ShippingProperties;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.OrderStatus;
+import com.selimhorri.app.dto.OrderStatusChangeDto;
+import com.selimhorri.app.repository.OrderItemRepository;
+import com.selimhorri.app.repository.OrderStatusProjectionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatusProjectionServiceImplTest {
+
+	@Mock
+	private OrderStatusProjectionRepository orderStatusProjectionRepository;
+	@Mock
+	private OrderItemRepository orderItemRepository;
+	@Mock
+	private OrderServiceClient orderServiceClient;
+	@Mock
+	private ThreadPoolTaskScheduler shippingTaskScheduler;
+	@Mock
+	private EntityManager entityManager;
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	private OrderStatusProjectionServiceImpl orderStatusProjectionService;
+
+	@BeforeEach
+	void setUp() {
+		this.orderStatusProjectionService = new OrderStatusProjectionServiceImpl(this.orderStatusProjectionRepository,
+				this.orderItemRepository, this.orderServiceClient, new ShippingProperties(),
+				this.shippingTaskScheduler, this.entityManager, this.transactionManager, new SimpleMeterRegistry());
+	}
+
+	@Test
+	void refreshRecordsFreshlyReadStatusesAndSkipsOrdersThatCouldNotBeRead() {
+		when(this.orderServiceClient.findAllByIdsFresh(List.of(101, 102)))
+				.thenReturn(Map.of(101, order(101, OrderStatus.ORDERED)));
+		when(this.orderStatusProjectionRepository.updateUnlessNewer(eq(101), eq("ORDERED"), any())).thenReturn(1);
+
+		assertThat(this.orderStatusProjectionService.refresh(List.of(101, 102))).isEqualTo(1);
+
+		verify(this.orderServiceClient).evict(101);
+		verify(this.orderServiceClient).evict(102);
+		verify(this.orderServiceClient, never()).findAllByIds(any());
+		verify(this.orderStatusProjectionRepository, never()).updateUnlessNewer(eq(102), any(), any());
+	}
+
+	@Test
+	void aChangeIsRecordedAsOfTheTimeItTookEffect() {
+		final var changedAt = Instant.parse("2026-01-01T10:00:00Z");
+		when(this.orderStatusProjectionRepository.updateUnlessNewer(101, "ORDERED", changedAt)).thenReturn(1);
+
+		assertThat(this.orderStatusProjectionService.apply(List.of(OrderStatusChangeDto.builder()
+				.orderId(101)
+				.orderStatus("ORDERED")
+				.changedAt(changedAt)
+				.build()))).isEqualTo(1);
+	}
+
+	@Test
+	void aChangeOlderThanTheRecordedOneIsIgnored() {
+		final var changedAt = Instant.parse("2026-01-01T10:00:00Z");
+		when(this.orderStatusProjectionRepository.updateUnlessNewer(101, "CREATED", changedAt)).thenReturn(0);
+		when(this.orderStatusProjectionRepository.existsById(101)).thenReturn(true);
+
+		assertThat(this.orderStatusProjectionService.apply(List.of(OrderStatusChangeDto.builder()
+				.orderId(101)
+				.orderStatus("CREATED")
+				.changedAt(changedAt)
+				.build()))).isZero();
+		verify(this.entityManager, never()).persist(any());
+	}
+
+	private static OrderDto order(final int orderId, final OrderStatus orderStatus) {
+		return OrderDto.builder()
+				.orderId(orderId)
+				.orderStatus(orderStatus.name())
+				.build();
+	}
+
+}
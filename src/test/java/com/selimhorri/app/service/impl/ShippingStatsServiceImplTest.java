@@ -0,0 +1,123 @@
+package com.selimhorri.app.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.selimhorri.app.config.shipping.ShippingProperties;
+import com.selimhorri.app.domain.OrderItem;
+import com.selimhorri.app.domain.ShippingDailyStats;
+import com.selimhorri.app.metrics.ShippingMetrics;
+import com.selimhorri.app.repository.OrderItemRepository;
+import com.selimhorri.app.repository.ShippingDailyStatsRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ShippingStatsServiceImplTest {
+
+	private static final LocalDate DAY = LocalDate.of(2026, 1, 31);
+
+	@Mock
+	private OrderItemRepository orderItemRepository;
+	@Mock
+	private ShippingDailyStatsRepository shippingDailyStatsRepository;
+	@Mock
+	private EntityManager entityManager;
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	private ShippingProperties shippingProperties;
+	private ShippingStatsServiceImpl shippingStatsService;
+
+	@BeforeEach
+	void setUp() {
+		this.shippingProperties = new ShippingProperties();
+		this.shippingStatsService = new ShippingStatsServiceImpl(this.orderItemRepository,
+				this.shippingDailyStatsRepository, this.shippingProperties, this.entityManager,
+				new ShippingMetrics(new SimpleMeterRegistry()), this.transactionManager);
+	}
+
+	@Test
+	void onlyTheMissingSummaryRowsAreCreated() {
+		when(this.shippingDailyStatsRepository.findAllById(Set.of(
+						new ShippingDailyStats.Key(1, DAY), new ShippingDailyStats.Key(2, DAY))))
+				.thenReturn(List.of(ShippingDailyStats.builder().productId(1).statsDay(DAY).build()));
+
+		this.shippingStatsService.prepareSummary(List.of(orderItem(101, 1, 1), orderItem(102, 1, 1),
+				orderItem(103, 2, 1)));
+
+		verify(this.entityManager, times(1)).persist(any());
+		verify(this.entityManager).persist(ShippingDailyStats.builder().productId(2).statsDay(DAY).build());
+	}
+
+	@Test
+	void aShippingIsCountedOnItsCreationDay() {
+		this.shippingStatsService.addToSummary(List.of(orderItem(101, 1, 3)));
+
+		verify(this.shippingDailyStatsRepository).add(1, DAY, 1, 3);
+	}
+
+	@Test
+	void shippingsOfTheSameProductAndDayAreCountedInOneUpdate() {
+		this.shippingStatsService.addToSummary(List.of(orderItem(101, 1, 3), orderItem(102, 1, 2),
+				orderItem(103, 2, 4)));
+
+		verify(this.shippingDailyStatsRepository).add(1, DAY, 2, 5);
+		verify(this.shippingDailyStatsRepository).add(2, DAY, 1, 4);
+		verifyNoMoreInteractions(this.shippingDailyStatsRepository);
+	}
+
+	@Test
+	void dailyStatsCoverTheDefaultDaysUpToTheLastDayGiven() {
+		this.shippingStatsService.findByDay(null, DAY);
+
+		verify(this.shippingDailyStatsRepository).sumByDay(
+				DAY.minusDays(this.shippingProperties.getStats().getDefaultDays() - 1L), DAY);
+		verify(this.orderItemRepository, never()).sumByDay(any(), any());
+	}
+
+	@Test
+	void dailyStatsAreServedFromMemoryWithinTheirTtl() {
+		this.shippingStatsService.findByDay(DAY, DAY);
+		this.shippingStatsService.findByDay(DAY, DAY);
+
+		verify(this.shippingDailyStatsRepository, times(1)).sumByDay(DAY, DAY);
+	}
+
+	@Test
+	void aRangeLongerThanTheMaximumIsRejected() {
+		assertThatThrownBy(() -> this.shippingStatsService.findByDay(
+						DAY.minusDays(this.shippingProperties.getStats().getMaxDays()), DAY))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static OrderItem orderItem(final int orderId, final int productId, final int orderedQuantity) {
+		final var orderItem = OrderItem.builder()
+				.orderId(orderId)
+				.productId(productId)
+				.orderedQuantity(orderedQuantity)
+				.build();
+		orderItem.setCreatedAt(DAY.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+		return orderItem;
+	}
+
+}